@@ -0,0 +1,42 @@
+#!/usr/bin/env bash
+# Starts the server on platform threads and then on virtual threads and drives the same load against each run.
+# Needs a Java 21 runtime (virtual threads), the database from application.yaml and an existing user:
+#   LOAD_EMAIL=admin@mail.com LOAD_PASSWORD=secret scripts/compare-threads.sh
+# Optional: LOAD_PATH (default /shops/page?size=20), LOAD_CLIENTS (200), LOAD_WARMUP (PT10S), LOAD_DURATION (PT30S)
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+: "${LOAD_EMAIL:?LOAD_EMAIL of an existing user is required}"
+: "${LOAD_PASSWORD:?LOAD_PASSWORD of an existing user is required}"
+BASE_URL="http://localhost:8052/shop-server/api"
+
+./mvnw -q -B -DskipTests package
+JAR="target/shop-server-0.0.1-SNAPSHOT.jar"
+
+SERVER_PID=""
+trap '[ -n "$SERVER_PID" ] && kill "$SERVER_PID" 2>/dev/null || true' EXIT
+
+for VIRTUAL in false true; do
+  VIRTUAL_THREADS_ENABLED="$VIRTUAL" java -jar "$JAR" > "target/compare-threads-virtual-$VIRTUAL.log" 2>&1 &
+  SERVER_PID=$!
+  for _ in $(seq 1 120); do
+    curl -sf "$BASE_URL/actuator/health" > /dev/null && break
+    sleep 1
+  done
+  curl -sf "$BASE_URL/actuator/health" > /dev/null || { echo "Server did not start, see target/compare-threads-virtual-$VIRTUAL.log"; exit 1; }
+
+  java -cp target/test-classes \
+    -Dload.url="$BASE_URL" \
+    -Dload.label="virtual-threads=$VIRTUAL" \
+    -Dload.email="$LOAD_EMAIL" \
+    -Dload.password="$LOAD_PASSWORD" \
+    -Dload.path="${LOAD_PATH:-/shops/page?size=20}" \
+    -Dload.clients="${LOAD_CLIENTS:-200}" \
+    -Dload.warmup="${LOAD_WARMUP:-PT10S}" \
+    -Dload.duration="${LOAD_DURATION:-PT30S}" \
+    com.flamelab.shopserver.load.RequestsLoadDriver
+
+  kill "$SERVER_PID"
+  wait "$SERVER_PID" 2>/dev/null || true
+  SERVER_PID=""
+done
@@ -2,7 +2,9 @@ package com.flamelab.shopserver;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@EnableScheduling
 @SpringBootApplication(scanBasePackages = {"com.flamelab.shopserver"})
 public class ShopServerApplication {
 
@@ -0,0 +1,28 @@
+package com.flamelab.shopserver.configs;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// entities read from a lagging replica must not get into the second-level cache, where they would hide newer rows of the primary,
+// so sessions of replica transactions only read from the cache
+public class ReplicaAwareJpaTransactionManager extends JpaTransactionManager {
+
+    public ReplicaAwareJpaTransactionManager(EntityManagerFactory entityManagerFactory) {
+        super(entityManagerFactory);
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        super.doBegin(transaction, definition);
+        if (ReplicaRoutingDataSource.isReplicaTransaction(definition.isReadOnly(), definition.getName())) {
+            EntityManagerHolder entityManagerHolder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(obtainEntityManagerFactory());
+            entityManagerHolder.getEntityManager().unwrap(Session.class).setCacheMode(CacheMode.GET);
+        }
+    }
+
+}
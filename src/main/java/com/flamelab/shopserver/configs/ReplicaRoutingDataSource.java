@@ -0,0 +1,90 @@
+package com.flamelab.shopserver.configs;
+
+import com.flamelab.shopserver.ShopServerApplication;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+// sends read-only transactions of the application to the replica and everything else to the primary;
+// a requester that has just written keeps reading from the primary until the replica has caught up with the write
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+    private static final String APPLICATION_PACKAGE = ShopServerApplication.class.getPackageName() + ".";
+
+    // requesters by Authorization header or by address, an entry lives as long as the read-your-writes window
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReplicaRoutingDataSource(Duration readYourWritesWindow, long maximumRecentWriters) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maximumRecentWriters)
+                .expireAfterWrite(readYourWritesWindow)
+                .build();
+    }
+
+    // default transactions of Spring Data repositories are read-only as well, but they are used by check-then-write flows
+    // like buying products, so only read-only transactions opened by the application itself go to the replica
+    public static boolean isReplicaTransaction(boolean readOnly, String transactionName) {
+        return readOnly && transactionName != null && transactionName.startsWith(APPLICATION_PACKAGE);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String requester = getCurrentRequester();
+        if (isReplicaTransaction(TransactionSynchronizationManager.isCurrentTransactionReadOnly(),
+                TransactionSynchronizationManager.getCurrentTransactionName())) {
+            return requester != null && recentWriters.getIfPresent(requester) != null ? PRIMARY : REPLICA;
+        }
+        if (requester != null && TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registerRecentWriter(requester);
+        }
+        return PRIMARY;
+    }
+
+    // the requester is pinned to the primary only once its write is committed, a rolled back transaction changes nothing
+    private void registerRecentWriter(String requester) {
+        boolean alreadyRegistered = TransactionSynchronizationManager.getSynchronizations().stream()
+                .anyMatch(synchronization -> synchronization instanceof RecentWriterSynchronization);
+        if (!alreadyRegistered) {
+            TransactionSynchronizationManager.registerSynchronization(new RecentWriterSynchronization(requester));
+        }
+    }
+
+    private String getCurrentRequester() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes instanceof ServletRequestAttributes servletRequestAttributes) {
+            HttpServletRequest request = servletRequestAttributes.getRequest();
+            String authorization = request.getHeader(AUTHORIZATION);
+            return authorization != null ? authorization : request.getRemoteAddr();
+        }
+        return null;
+    }
+
+    private class RecentWriterSynchronization implements TransactionSynchronization {
+
+        private final String requester;
+
+        private RecentWriterSynchronization(String requester) {
+            this.requester = requester;
+        }
+
+        @Override
+        public void afterCommit() {
+            recentWriters.put(requester, true);
+        }
+
+    }
+
+}
@@ -1,12 +1,21 @@
 package com.flamelab.shopserver.controllers;
 
+import com.flamelab.shopserver.enums.ExportFormat;
 import com.flamelab.shopserver.enums.Roles;
+import com.flamelab.shopserver.enums.SalesPeriod;
 import com.flamelab.shopserver.managers.AuthManager;
 import com.flamelab.shopserver.managers.PurchaseHistoryManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+
+import static org.springframework.http.HttpStatus.ACCEPTED;
 import static org.springframework.http.HttpStatus.OK;
 
 @CrossOrigin(origins = "http://localhost:3000/")
@@ -56,4 +65,63 @@ public class PurchaseHistoryController {
                         productName));
     }
 
+    @GetMapping("/user/{userId}/export")
+    public ResponseEntity<StreamingResponseBody> exportPurchaseHistoryForUser(@RequestHeader("Authorization") String authorization, @PathVariable String userId, @RequestParam(defaultValue = "CSV") ExportFormat format, @RequestParam(defaultValue = "false") boolean gzip) {
+        return ResponseEntity
+                .status(OK)
+                .headers(provideExportHeaders("purchase-history-user-" + userId, format, gzip))
+                .body(purchaseHistoryManager.exportPurchaseHistoryForUser(
+                        authManager.validateAuthToken(authorization, Roles.ADMIN_CUSTOMER()),
+                        userId, format, gzip));
+    }
+
+    @GetMapping("/shop/{shopId}/export")
+    public ResponseEntity<StreamingResponseBody> exportPurchaseHistoryForShop(@RequestHeader("Authorization") String authorization, @PathVariable String shopId, @RequestParam(defaultValue = "CSV") ExportFormat format, @RequestParam(defaultValue = "false") boolean gzip) {
+        return ResponseEntity
+                .status(OK)
+                .headers(provideExportHeaders("purchase-history-shop-" + shopId, format, gzip))
+                .body(purchaseHistoryManager.exportPurchaseHistoryForShop(
+                        authManager.validateAuthToken(authorization, Roles.ADMIN_MERCHANT()),
+                        shopId, format, gzip));
+    }
+
+    @GetMapping("/shop/{shopId}/stats")
+    public ResponseEntity<?> getSalesStatisticsForShop(@RequestHeader("Authorization") String authorization, @PathVariable String shopId, @RequestParam(defaultValue = "DAY") SalesPeriod period, @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity
+                .status(OK)
+                .body(purchaseHistoryManager.getSalesStatisticsForShop(
+                        authManager.validateAuthToken(authorization, Roles.ADMIN_MERCHANT()),
+                        shopId, period, date));
+    }
+
+    @GetMapping("/shop/{shopId}/stats/product/{productName}")
+    public ResponseEntity<?> getSalesStatisticsForShopByProductName(@RequestHeader("Authorization") String authorization, @PathVariable String shopId, @PathVariable String productName, @RequestParam(defaultValue = "DAY") SalesPeriod period, @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity
+                .status(OK)
+                .body(purchaseHistoryManager.getSalesStatisticsForShopByProductName(
+                        authManager.validateAuthToken(authorization, Roles.ADMIN_MERCHANT()),
+                        shopId, productName, period, date));
+    }
+
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<?> rebuildSalesStatistics(@RequestHeader("Authorization") String authorization) {
+        purchaseHistoryManager.rebuildSalesStatistics(authManager.validateAuthToken(authorization, Roles.ADMIN()));
+        return ResponseEntity
+                .status(ACCEPTED)
+                .build();
+    }
+
+    private HttpHeaders provideExportHeaders(String fileName, ExportFormat format, boolean gzip) {
+        HttpHeaders headers = new HttpHeaders();
+        String fullFileName = fileName + "." + format.getFileExtension();
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_TYPE, "application/gzip");
+            fullFileName += ".gz";
+        } else {
+            headers.set(HttpHeaders.CONTENT_TYPE, format.getContentType() + ";charset=UTF-8");
+        }
+        headers.setContentDisposition(ContentDisposition.attachment().filename(fullFileName).build());
+        return headers;
+    }
+
 }
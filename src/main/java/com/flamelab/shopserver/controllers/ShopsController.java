@@ -1,13 +1,20 @@
 package com.flamelab.shopserver.controllers;
 
 import com.flamelab.shopserver.dtos.create.CreateShopDto;
+import com.flamelab.shopserver.dtos.update.UpdateProductStockDto;
+import com.flamelab.shopserver.enums.ExportFormat;
 import com.flamelab.shopserver.enums.Roles;
 import com.flamelab.shopserver.managers.AuthManager;
 import com.flamelab.shopserver.managers.ShopsManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.util.List;
+
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.OK;
 
@@ -46,6 +53,15 @@ public class ShopsController {
                         authManager.validateAuthToken(authorization, Roles.ADMIN_CUSTOMER())));
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<?> getShopsPage(@RequestHeader("Authorization") String authorization, @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size, @RequestParam(defaultValue = "createdDate") String sort, @RequestParam(defaultValue = "ASC") Sort.Direction direction, @RequestParam(required = false) String after) {
+        return ResponseEntity
+                .status(OK)
+                .body(shopsManager.getShopsPage(
+                        authManager.validateAuthToken(authorization, Roles.ADMIN_CUSTOMER()),
+                        page, size, sort, direction, after));
+    }
+
     @GetMapping("/byOwnerId/{ownerId}")
     public ResponseEntity<?> getAllShopsByOwnerId(@RequestHeader("Authorization") String authorization, @PathVariable String ownerId) {
         return ResponseEntity
@@ -73,6 +89,24 @@ public class ShopsController {
                         text));
     }
 
+    @GetMapping("/autocomplete")
+    public ResponseEntity<?> getAutocompleteCompletions(@RequestHeader("Authorization") String authorization, @RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity
+                .status(OK)
+                .body(shopsManager.getAutocompleteCompletions(
+                        authManager.validateAuthToken(authorization, Roles.ADMIN_CUSTOMER_MERCHANT()),
+                        prefix, limit));
+    }
+
+    @GetMapping("/products/{productId}/related")
+    public ResponseEntity<?> getRelatedProducts(@RequestHeader("Authorization") String authorization, @PathVariable String productId, @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity
+                .status(OK)
+                .body(shopsManager.getRelatedProducts(
+                        authManager.validateAuthToken(authorization, Roles.ADMIN_CUSTOMER_MERCHANT()),
+                        productId, limit));
+    }
+
     @GetMapping("/products/{shopId}")
     public ResponseEntity<?> getAllProductsInTheShop(@RequestHeader("Authorization") String authorization, @PathVariable String shopId) {
         return ResponseEntity
@@ -82,6 +116,24 @@ public class ShopsController {
                         shopId));
     }
 
+    @GetMapping("/{shopId}/bestsellers")
+    public ResponseEntity<?> getBestsellersInTheShop(@RequestHeader("Authorization") String authorization, @PathVariable String shopId, @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity
+                .status(OK)
+                .body(shopsManager.getBestsellersInTheShop(
+                        authManager.validateAuthToken(authorization, Roles.ADMIN_CUSTOMER_MERCHANT()),
+                        shopId, limit));
+    }
+
+    @GetMapping("/bestsellers")
+    public ResponseEntity<?> getBestsellers(@RequestHeader("Authorization") String authorization, @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity
+                .status(OK)
+                .body(shopsManager.getBestsellers(
+                        authManager.validateAuthToken(authorization, Roles.ADMIN_CUSTOMER_MERCHANT()),
+                        limit));
+    }
+
     @PutMapping("/renameShop/{shopId}")
     public ResponseEntity<?> renameShop(@RequestHeader("Authorization") String authorization, @PathVariable String shopId, @RequestParam String newName) {
         return ResponseEntity
@@ -109,6 +161,15 @@ public class ShopsController {
                         shopId, productName, productAmount, price));
     }
 
+    @PostMapping(value = "/buy/shop/stock/{shopId}/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importProductsShopFromTheStock(@RequestHeader("Authorization") String authorization, @PathVariable String shopId, @RequestHeader(CONTENT_TYPE) String contentType, InputStream body) {
+        return ResponseEntity
+                .status(CREATED)
+                .body(shopsManager.importProductsShopFromTheStock(
+                        authManager.validateAuthToken(authorization, Roles.MERCHANT()),
+                        shopId, ExportFormat.fromContentType(contentType), body));
+    }
+
     @PutMapping("/buy/shop/{shopId}/{productId}")
     public ResponseEntity<?> buyExistsProductsShopFromTheStock(@RequestHeader("Authorization") String authorization, @PathVariable String shopId, @PathVariable String productId, @RequestParam double productCost, @RequestParam int productAmount) {
         return ResponseEntity
@@ -127,6 +188,15 @@ public class ShopsController {
                         shopId, productId, productAmount));
     }
 
+    @PutMapping("/{shopId}/products/bulk")
+    public ResponseEntity<?> updateProductsInTheShop(@RequestHeader("Authorization") String authorization, @PathVariable String shopId, @RequestBody List<UpdateProductStockDto> updateProductStockDtos) {
+        return ResponseEntity
+                .status(OK)
+                .body(shopsManager.updateProductsInTheShop(
+                        authManager.validateAuthToken(authorization, Roles.MERCHANT()),
+                        shopId, updateProductStockDtos));
+    }
+
     @PutMapping("/product/price/{productId}")
     public ResponseEntity<?> setProductPrice(@RequestHeader("Authorization") String authorization, @PathVariable String productId, @RequestParam double newPrice) {
         return ResponseEntity
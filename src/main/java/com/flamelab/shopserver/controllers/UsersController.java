@@ -10,6 +10,7 @@ import com.flamelab.shopserver.exceptions.ResourceException;
 import com.flamelab.shopserver.managers.AuthManager;
 import com.flamelab.shopserver.managers.UsersManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -104,6 +105,15 @@ public class UsersController {
                 .body(usersManager.getAllUsers(authManager.validateAuthToken(authorization, Roles.ADMIN())));
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<?> getUsersPage(@RequestHeader("Authorization") String authorization, @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size, @RequestParam(defaultValue = "createdDate") String sort, @RequestParam(defaultValue = "ASC") Sort.Direction direction, @RequestParam(required = false) String after) {
+        return ResponseEntity
+                .status(OK)
+                .body(usersManager.getUsersPage(
+                        authManager.validateAuthToken(authorization, Roles.ADMIN()),
+                        page, size, sort, direction, after));
+    }
+
     @GetMapping("/search")
     public ResponseEntity<?> searchUsers(@RequestHeader("Authorization") String authorization, @RequestParam String text) {
         return ResponseEntity
@@ -8,6 +8,7 @@ import com.flamelab.shopserver.enums.Roles;
 import com.flamelab.shopserver.managers.AuthManager;
 import com.flamelab.shopserver.managers.WalletsManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -38,6 +39,15 @@ public class WalletsController {
                 .body(walletsManager.getAllWallets(authManager.validateAuthToken(authorization, Roles.ADMIN())));
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<?> getWalletsPage(@RequestHeader("Authorization") String authorization, @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size, @RequestParam(defaultValue = "createdDate") String sort, @RequestParam(defaultValue = "ASC") Sort.Direction direction, @RequestParam(required = false) String after) {
+        return ResponseEntity
+                .status(OK)
+                .body(walletsManager.getWalletsPage(
+                        authManager.validateAuthToken(authorization, Roles.ADMIN()),
+                        page, size, sort, direction, after));
+    }
+
     @PutMapping("/deposit/user")
     public ResponseEntity<?> doDepositToUsersWallet(@RequestHeader("Authorization") String authorization, @RequestBody CreateUserDepositData createUserDepositData) {
         return ResponseEntity
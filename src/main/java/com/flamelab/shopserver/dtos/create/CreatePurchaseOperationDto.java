@@ -9,6 +9,7 @@ import lombok.*;
 @AllArgsConstructor
 public class CreatePurchaseOperationDto extends CreateCommonDto {
 
+    private String productId;
     private String productName;
     private Integer amount;
     private Double price;
@@ -0,0 +1,18 @@
+package com.flamelab.shopserver.dtos.transfer;
+
+import com.flamelab.shopserver.enums.AutocompleteEntryType;
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferAutocompleteDto {
+
+    private String name;
+    private AutocompleteEntryType type;
+    private int matchesCount;
+
+}
@@ -0,0 +1,19 @@
+package com.flamelab.shopserver.dtos.transfer;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferBestsellerDto {
+
+    private String productId;
+    private String productName;
+    private String shopId;
+    private long soldAmount;
+    private long maxOverestimation;
+
+}
@@ -0,0 +1,16 @@
+package com.flamelab.shopserver.dtos.transfer;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferImportErrorDto {
+
+    private long lineNumber;
+    private String message;
+
+}
@@ -0,0 +1,23 @@
+package com.flamelab.shopserver.dtos.transfer;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferPageDto<T> {
+
+    private List<T> content;
+    private int page;
+    private int size;
+    // not counted for keyset pages
+    private Long totalElements;
+    // id to pass as "after" for the next keyset page, null on the last page
+    private String nextAfter;
+
+}
@@ -0,0 +1,21 @@
+package com.flamelab.shopserver.dtos.transfer;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferProductsImportDto {
+
+    private int importedCount;
+    private int rejectedCount;
+    private double totalPrice;
+    // only the first errors are reported, rejectedCount has the number of all of them
+    private List<TransferImportErrorDto> errors;
+
+}
@@ -12,6 +12,7 @@ import java.util.UUID;
 @NoArgsConstructor
 public class TransferPurchaseOperationDto extends TransferCommonDto{
 
+    private String productId;
     private String productName;
     private int amount;
     private double price;
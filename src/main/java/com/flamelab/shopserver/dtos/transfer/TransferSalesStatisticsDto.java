@@ -0,0 +1,24 @@
+package com.flamelab.shopserver.dtos.transfer;
+
+import com.flamelab.shopserver.enums.SalesPeriod;
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferSalesStatisticsDto {
+
+    private String shopId;
+    private String productName;
+    private SalesPeriod period;
+    private LocalDate periodStart;
+    private long purchasesCount;
+    private long unitsAmount;
+    private double revenue;
+
+}
@@ -2,6 +2,8 @@ package com.flamelab.shopserver.dtos.transfer;
 
 import lombok.*;
 
+import java.time.LocalDateTime;
+
 @Getter
 @Setter
 @ToString(callSuper = true)
@@ -16,4 +18,17 @@ public class TransferShopDto extends TransferCommonDto {
     private String ownerName;
     private double walletAmount;
 
+    // used by the queries selecting shops joined with their wallets
+    public TransferShopDto(String id, LocalDateTime createdDate, LocalDateTime lastUpdatedDate, String name, String walletId,
+                           String ownerId, String ownerName, Double walletAmount) {
+        setId(id);
+        setCreatedDate(createdDate);
+        setLastUpdatedDate(lastUpdatedDate);
+        this.name = name;
+        this.walletId = walletId;
+        this.ownerId = ownerId;
+        this.ownerName = ownerName;
+        this.walletAmount = walletAmount == null ? 0 : walletAmount;
+    }
+
 }
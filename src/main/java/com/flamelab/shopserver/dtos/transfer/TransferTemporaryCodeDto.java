@@ -10,6 +10,7 @@ import lombok.*;
 @NoArgsConstructor
 public class TransferTemporaryCodeDto extends TransferCommonDto {
 
+    private String email;
     private int tempCode;
 
 }
@@ -3,6 +3,7 @@ package com.flamelab.shopserver.dtos.transfer;
 import com.flamelab.shopserver.enums.Roles;
 import lombok.*;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Getter
@@ -20,4 +21,18 @@ public class TransferUserDto extends TransferCommonDto {
     private Roles role;
     private boolean isActive;
 
+    // used by the queries selecting users joined with their wallets
+    public TransferUserDto(String id, LocalDateTime createdDate, LocalDateTime lastUpdatedDate, String username, String email,
+                           String walletId, Double walletAmount, String role, boolean isActive) {
+        setId(id);
+        setCreatedDate(createdDate);
+        setLastUpdatedDate(lastUpdatedDate);
+        this.username = username;
+        this.email = email;
+        this.walletId = walletId;
+        this.walletAmount = walletAmount == null ? 0 : walletAmount;
+        this.role = Roles.valueOf(role);
+        this.isActive = isActive;
+    }
+
 }
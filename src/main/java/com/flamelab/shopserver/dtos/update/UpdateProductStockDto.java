@@ -0,0 +1,21 @@
+package com.flamelab.shopserver.dtos.update;
+
+import com.flamelab.shopserver.enums.NumberActionType;
+import lombok.*;
+
+@Getter
+@Setter
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class UpdateProductStockDto extends UpdateCommonDto {
+
+    private String productId;
+    // the new price of the product, for INCREASE it is also the price of one unit bought on the stock
+    private Double price;
+    private Integer amount;
+    // INCREASE buys the amount on the stock, DECREASE removes the amount, CHANGE sets the amount
+    private NumberActionType amountAction;
+
+}
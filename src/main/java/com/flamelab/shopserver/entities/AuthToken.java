@@ -2,17 +2,24 @@ package com.flamelab.shopserver.entities;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
+@EqualsAndHashCode(callSuper = false)
 @NoArgsConstructor
 @Entity
-@Table(name = "tokens")
-public class AuthToken {
+@Table(name = "tokens", indexes = {
+        @Index(name = "tokens_token_idx", columnList = "token", unique = true),
+        @Index(name = "tokens_email_idx", columnList = "email"),
+        @Index(name = "tokens_last_used_date_idx", columnList = "last_used_date"),
+        @Index(name = "tokens_expires_date_idx", columnList = "expires_date")})
+public class AuthToken extends CommonEntity {
 
     @Id
     private String id;
@@ -23,6 +30,7 @@ public class AuthToken {
     private String tokenType;
     private String email;
     private String role;
-    private int usageAmount;
+    private LocalDateTime lastUsedDate;
+    private LocalDateTime expiresDate;
 
 }
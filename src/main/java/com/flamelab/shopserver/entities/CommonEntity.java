@@ -0,0 +1,28 @@
+package com.flamelab.shopserver.entities;
+
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+
+// ids of all entities are generated by the application, so without this flag save() can not tell a new entity
+// from a detached one and runs a SELECT before every INSERT
+@MappedSuperclass
+public abstract class CommonEntity implements Persistable<String> {
+
+    @Transient
+    private boolean isNew = true;
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.flamelab.shopserver.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@EqualsAndHashCode(callSuper = false)
+@NoArgsConstructor
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "email_outbox_status_next_attempt_date_idx", columnList = "status, next_attempt_date"),
+        @Index(name = "email_outbox_created_date_idx", columnList = "created_date")})
+public class EmailOutboxMessage extends CommonEntity {
+
+    @Id
+    private String id;
+    private LocalDateTime createdDate;
+    private LocalDateTime lastUpdatedDate;
+    private String receiverEmail;
+    private String subject;
+    @Column(columnDefinition = "text")
+    private String text;
+    private String status;
+    private int attempts;
+    private LocalDateTime nextAttemptDate;
+    @Column(columnDefinition = "text")
+    private String lastError;
+
+}
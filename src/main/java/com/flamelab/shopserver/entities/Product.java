@@ -1,17 +1,29 @@
 package com.flamelab.shopserver.entities;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Where;
 
 import java.time.LocalDateTime;
 
 @Data
+@EqualsAndHashCode(callSuper = false)
 @NoArgsConstructor
 @Entity
-@Table(name = "products")
-public class Product {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "products")
+@Table(name = "products",
+        uniqueConstraints = @UniqueConstraint(name = "products_owner_shop_id_name_key", columnNames = {"owner_shop_id", "name"}),
+        indexes = @Index(name = "products_deleted_date_idx", columnList = "deleted_date"))
+@Where(clause = "deleted_date is null")
+public class Product extends CommonEntity {
 
     @Id
     private String id;
@@ -21,5 +33,6 @@ public class Product {
     private String name;
     private int amount;
     private double price;
+    private LocalDateTime deletedDate;
 
 }
@@ -2,28 +2,37 @@ package com.flamelab.shopserver.entities;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
+@EqualsAndHashCode(callSuper = false)
 @NoArgsConstructor
 @Entity
-@Table(name = "purchase_history")
-public class PurchaseOperation {
+@Table(name = "purchase_history", indexes = {
+        @Index(name = "purchase_history_customer_id_created_date_idx", columnList = "customer_id, created_date"),
+        @Index(name = "purchase_history_merchant_id_created_date_idx", columnList = "merchant_id, created_date")})
+public class PurchaseOperation extends CommonEntity {
+
+    public static final String STOCK_MERCHANT_ID = "22222222-2222-2222-2222-222222222222";
+    public static final String STOCK_MERCHANT_NAME = "Stock";
 
     @Id
     private String id;
     private LocalDateTime createdDate;
     private LocalDateTime lastUpdatedDate;
+    private String productId;
     private String productName;
     private int amount;
     private double price;
     // in case when shop buy products on the stock:
     // the customerId = shopId
-    // merchantId = id of the stock - hardcoded value in the DB
+    // merchantId = id of the stock - STOCK_MERCHANT_ID
     private String merchantId;
     private String merchantName;
     private String customerId;
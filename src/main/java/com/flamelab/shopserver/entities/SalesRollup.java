@@ -0,0 +1,32 @@
+package com.flamelab.shopserver.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@EqualsAndHashCode(callSuper = false)
+@NoArgsConstructor
+@Entity
+@Table(name = "sales_rollups", uniqueConstraints = @UniqueConstraint(name = "sales_rollups_shop_id_product_name_sales_date_key", columnNames = {"shop_id", "product_name", "sales_date"}))
+public class SalesRollup extends CommonEntity {
+
+    @Id
+    private String id;
+    private LocalDateTime createdDate;
+    private LocalDateTime lastUpdatedDate;
+    private String shopId;
+    private String productName;
+    private LocalDate salesDate;
+    private long purchasesCount;
+    private long unitsAmount;
+    private double revenue;
+
+}
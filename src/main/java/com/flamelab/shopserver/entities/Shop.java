@@ -1,18 +1,32 @@
 package com.flamelab.shopserver.entities;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Where;
 
 import java.time.LocalDateTime;
 
 @Data
+@EqualsAndHashCode(callSuper = false)
 @NoArgsConstructor
 @Entity
-@Table(name = "shops")
-public class Shop {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "shops")
+@Table(name = "shops", indexes = {
+        @Index(name = "shops_created_date_idx", columnList = "created_date"),
+        @Index(name = "shops_name_idx", columnList = "name"),
+        @Index(name = "shops_owner_id_idx", columnList = "owner_id"),
+        @Index(name = "shops_deleted_date_idx", columnList = "deleted_date")})
+@Where(clause = "deleted_date is null")
+public class Shop extends CommonEntity {
 
     @Id
     private String id;
@@ -22,5 +36,6 @@ public class Shop {
     private String ownerId;
     private String ownerName;
     private String walletId;
+    private LocalDateTime deletedDate;
 
 }
@@ -2,17 +2,21 @@ package com.flamelab.shopserver.entities;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.*;
 
 import java.time.LocalDateTime;
 
 @Data
+@EqualsAndHashCode(callSuper = false)
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "temp_codes")
-public class TemporaryCode {
+@Table(name = "temp_codes", indexes = {
+        @Index(name = "temp_codes_email_temp_code_idx", columnList = "email, temp_code"),
+        @Index(name = "temp_codes_expires_date_idx", columnList = "expires_date")})
+public class TemporaryCode extends CommonEntity {
 
     @Id
     private String id;
@@ -20,5 +24,6 @@ public class TemporaryCode {
     private LocalDateTime lastUpdatedDate;
     private String email;
     private int tempCode;
+    private LocalDateTime expiresDate;
 
 }
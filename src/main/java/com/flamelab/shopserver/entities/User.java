@@ -1,18 +1,29 @@
 package com.flamelab.shopserver.entities;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
 @Data
+@EqualsAndHashCode(callSuper = false)
 @Entity
-@Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "users_created_date_idx", columnList = "created_date"),
+        @Index(name = "users_username_idx", columnList = "username"),
+        @Index(name = "users_email_idx", columnList = "email")})
 @NoArgsConstructor
-public class User {
+public class User extends CommonEntity {
 
     @Id
     private String id;
@@ -2,17 +2,22 @@ package com.flamelab.shopserver.entities;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
+@EqualsAndHashCode(callSuper = false)
 @NoArgsConstructor
 @Entity
-@Table(name = "wallets")
-public class Wallet {
+@Table(name = "wallets", indexes = {
+        @Index(name = "wallets_created_date_idx", columnList = "created_date"),
+        @Index(name = "wallets_owner_id_idx", columnList = "owner_id")})
+public class Wallet extends CommonEntity {
 
     @Id
     private String id;
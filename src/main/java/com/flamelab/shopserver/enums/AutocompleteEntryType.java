@@ -0,0 +1,7 @@
+package com.flamelab.shopserver.enums;
+
+public enum AutocompleteEntryType {
+
+    SHOP, PRODUCT
+
+}
@@ -0,0 +1,5 @@
+package com.flamelab.shopserver.enums;
+
+public enum EmailStatus {
+    PENDING, FAILED
+}
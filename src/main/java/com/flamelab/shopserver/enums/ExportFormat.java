@@ -0,0 +1,39 @@
+package com.flamelab.shopserver.enums;
+
+import com.flamelab.shopserver.exceptions.ResourceException;
+
+import java.util.Arrays;
+
+import static org.springframework.http.HttpStatus.UNSUPPORTED_MEDIA_TYPE;
+
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson")
+    ;
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    // parameters like charset are not a part of the format
+    public static ExportFormat fromContentType(String contentType) {
+        String mediaType = contentType == null ? "" : contentType.split(";")[0].trim();
+        return Arrays.stream(values())
+                .filter(format -> format.contentType.equalsIgnoreCase(mediaType))
+                .findFirst()
+                .orElseThrow(() -> new ResourceException(UNSUPPORTED_MEDIA_TYPE, String.format("Content type '%s' is not supported", contentType)));
+    }
+
+}
@@ -2,7 +2,12 @@ package com.flamelab.shopserver.managers;
 
 import com.flamelab.shopserver.dtos.transfer.TransferAuthTokenDto;
 import com.flamelab.shopserver.dtos.transfer.TransferPurchaseOperationDto;
+import com.flamelab.shopserver.dtos.transfer.TransferSalesStatisticsDto;
+import com.flamelab.shopserver.enums.ExportFormat;
+import com.flamelab.shopserver.enums.SalesPeriod;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface PurchaseHistoryManager {
@@ -15,4 +20,14 @@ public interface PurchaseHistoryManager {
 
     List<TransferPurchaseOperationDto> getPurchaseHistoryForShopByProductName(TransferAuthTokenDto authToken, String shopId, String productName);
 
+    StreamingResponseBody exportPurchaseHistoryForUser(TransferAuthTokenDto authToken, String userId, ExportFormat format, boolean gzip);
+
+    StreamingResponseBody exportPurchaseHistoryForShop(TransferAuthTokenDto authToken, String shopId, ExportFormat format, boolean gzip);
+
+    TransferSalesStatisticsDto getSalesStatisticsForShop(TransferAuthTokenDto authToken, String shopId, SalesPeriod period, LocalDate date);
+
+    TransferSalesStatisticsDto getSalesStatisticsForShopByProductName(TransferAuthTokenDto authToken, String shopId, String productName, SalesPeriod period, LocalDate date);
+
+    void rebuildSalesStatistics(TransferAuthTokenDto authToken);
+
 }
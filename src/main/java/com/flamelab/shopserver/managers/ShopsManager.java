@@ -2,9 +2,17 @@ package com.flamelab.shopserver.managers;
 
 import com.flamelab.shopserver.dtos.create.CreateShopDto;
 import com.flamelab.shopserver.dtos.transfer.TransferAuthTokenDto;
+import com.flamelab.shopserver.dtos.transfer.TransferAutocompleteDto;
+import com.flamelab.shopserver.dtos.transfer.TransferBestsellerDto;
+import com.flamelab.shopserver.dtos.transfer.TransferPageDto;
 import com.flamelab.shopserver.dtos.transfer.TransferProductDto;
+import com.flamelab.shopserver.dtos.transfer.TransferProductsImportDto;
 import com.flamelab.shopserver.dtos.transfer.TransferShopDto;
+import com.flamelab.shopserver.dtos.update.UpdateProductStockDto;
+import com.flamelab.shopserver.enums.ExportFormat;
+import org.springframework.data.domain.Sort;
 
+import java.io.InputStream;
 import java.util.List;
 
 public interface ShopsManager {
@@ -15,24 +23,38 @@ public interface ShopsManager {
 
     List<TransferShopDto> getAllShops(TransferAuthTokenDto authToken);
 
+    TransferPageDto<TransferShopDto> getShopsPage(TransferAuthTokenDto authToken, int page, int size, String sort, Sort.Direction direction, String after);
+
     List<TransferShopDto> getAllShopsByOwnerId(TransferAuthTokenDto authToken, String ownerId);
 
     List<TransferShopDto> getAllShopsByTextInParameters(TransferAuthTokenDto authToken, String text);
 
     List<TransferProductDto> getAllProductsByTextInParameters(TransferAuthTokenDto authToken, String text);
 
+    List<TransferAutocompleteDto> getAutocompleteCompletions(TransferAuthTokenDto authToken, String prefix, int limit);
+
     List<TransferProductDto> getAllProductsInTheShop(TransferAuthTokenDto authToken, String shopId);
 
+    List<TransferBestsellerDto> getBestsellersInTheShop(TransferAuthTokenDto authToken, String shopId, int limit);
+
+    List<TransferBestsellerDto> getBestsellers(TransferAuthTokenDto authToken, int limit);
+
+    List<TransferProductDto> getRelatedProducts(TransferAuthTokenDto authToken, String productId, int limit);
+
     TransferShopDto renameShop(TransferAuthTokenDto authToken, String shopId, String newName);
 
     TransferProductDto renameProduct(TransferAuthTokenDto authToken, String shopId, String newName);
 
     TransferProductDto buyNewProductsShopFromTheStock(TransferAuthTokenDto authToken, String shopId, String productName, int productAmount, double price);
 
+    TransferProductsImportDto importProductsShopFromTheStock(TransferAuthTokenDto authToken, String shopId, ExportFormat format, InputStream inputStream);
+
     TransferProductDto buyExistsProductsShopFromTheStock(TransferAuthTokenDto authToken, String shopId, String productId, double productCost, int amount);
 
     TransferProductDto buyProductsUserFromTheShop(TransferAuthTokenDto authToken, String shopId, String productName, int productAmount);
 
+    List<TransferProductDto> updateProductsInTheShop(TransferAuthTokenDto authToken, String shopId, List<UpdateProductStockDto> updateProductStockDtos);
+
     TransferProductDto setProductPrice(TransferAuthTokenDto authToken, String productId, double newPrice);
 
     TransferProductDto setProductAmount(TransferAuthTokenDto validateAuthToken, String productId, int newAmount);
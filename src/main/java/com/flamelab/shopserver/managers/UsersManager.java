@@ -5,6 +5,7 @@ import com.flamelab.shopserver.dtos.transfer.*;
 import com.flamelab.shopserver.dtos.update.RecoverPasswordDto;
 import com.flamelab.shopserver.dtos.update.UpdateUserDto;
 import com.flamelab.shopserver.dtos.update.UpdateUserPasswordDto;
+import org.springframework.data.domain.Sort;
 
 import java.util.List;
 
@@ -28,6 +29,8 @@ public interface UsersManager {
 
     List<TransferUserDto> getAllUsers(TransferAuthTokenDto authToken);
 
+    TransferPageDto<TransferUserDto> getUsersPage(TransferAuthTokenDto authToken, int page, int size, String sort, Sort.Direction direction, String after);
+
     TransferUserDto updateUserData(TransferAuthTokenDto authToken, String userId, UpdateUserDto updateUserDto);
 
     void recoverPassword(RecoverPasswordDto recoverPasswordDto);
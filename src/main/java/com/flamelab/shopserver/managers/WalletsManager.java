@@ -5,7 +5,9 @@ import com.flamelab.shopserver.dtos.create.wallet_operations.CreateShopWithdrawD
 import com.flamelab.shopserver.dtos.create.wallet_operations.CreateUserDepositData;
 import com.flamelab.shopserver.dtos.create.wallet_operations.CreateUserWithdrawData;
 import com.flamelab.shopserver.dtos.transfer.TransferAuthTokenDto;
+import com.flamelab.shopserver.dtos.transfer.TransferPageDto;
 import com.flamelab.shopserver.dtos.transfer.TransferWalletDto;
+import org.springframework.data.domain.Sort;
 
 import java.util.List;
 
@@ -15,6 +17,8 @@ public interface WalletsManager {
 
     List<TransferWalletDto> getAllWallets(TransferAuthTokenDto authToken);
 
+    TransferPageDto<TransferWalletDto> getWalletsPage(TransferAuthTokenDto authToken, int page, int size, String sort, Sort.Direction direction, String after);
+
     TransferWalletDto getWalletByOwnerId(TransferAuthTokenDto authToken, String ownerId);
 
     TransferWalletDto doDepositToUsersWallet(TransferAuthTokenDto authToken, CreateUserDepositData createUserDepositData);
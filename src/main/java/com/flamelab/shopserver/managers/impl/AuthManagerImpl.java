@@ -38,7 +38,7 @@ public class AuthManagerImpl implements AuthManager {
                 validateIsUserActive(user);
                 if (authService.isTokenExistsByEmail(createAuthTokenDto.getEmail())) {
                     AuthToken token = authService.getTokenByEmail(createAuthTokenDto.getEmail());
-                    authService.deleteTokenByTokenId(token.getId());
+                    authService.deleteToken(token.getToken());
                 }
                 return authTokenMapper.mapToDto(authService.createToken(user));
             } else {
@@ -58,7 +58,7 @@ public class AuthManagerImpl implements AuthManager {
 
     @Override
     public void logout(TransferAuthTokenDto authToken) {
-        authService.deleteTokenByTokenId(authToken.getId());
+        authService.deleteToken(authToken.getToken());
     }
 
     @Override
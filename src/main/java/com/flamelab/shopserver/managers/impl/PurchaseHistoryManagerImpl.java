@@ -2,15 +2,22 @@ package com.flamelab.shopserver.managers.impl;
 
 import com.flamelab.shopserver.dtos.transfer.TransferAuthTokenDto;
 import com.flamelab.shopserver.dtos.transfer.TransferPurchaseOperationDto;
+import com.flamelab.shopserver.dtos.transfer.TransferSalesStatisticsDto;
+import com.flamelab.shopserver.enums.ExportFormat;
+import com.flamelab.shopserver.enums.SalesPeriod;
 import com.flamelab.shopserver.exceptions.ResourceException;
 import com.flamelab.shopserver.managers.PurchaseHistoryManager;
 import com.flamelab.shopserver.mappers.PurchaseOperationMapper;
 import com.flamelab.shopserver.services.ProductsService;
+import com.flamelab.shopserver.services.PurchaseHistoryExportService;
 import com.flamelab.shopserver.services.PurchaseOperationsService;
+import com.flamelab.shopserver.services.SalesRollupsService;
 import com.flamelab.shopserver.services.ShopsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -26,6 +33,8 @@ public class PurchaseHistoryManagerImpl implements PurchaseHistoryManager {
     private final PurchaseOperationsService purchaseOperationsService;
     private final PurchaseOperationMapper purchaseOperationMapper;
     private final ProductsService productsService;
+    private final PurchaseHistoryExportService purchaseHistoryExportService;
+    private final SalesRollupsService salesRollupsService;
 
     @Override
     public List<TransferPurchaseOperationDto> getPurchaseHistoryForUser(TransferAuthTokenDto authToken, String userId) {
@@ -81,4 +90,45 @@ public class PurchaseHistoryManagerImpl implements PurchaseHistoryManager {
         return resultPurchaseOperations;
     }
 
+    @Override
+    public StreamingResponseBody exportPurchaseHistoryForUser(TransferAuthTokenDto authToken, String userId, ExportFormat format, boolean gzip) {
+        if (authToken.getRole().equals(ADMIN.name())) {
+            return outputStream -> purchaseHistoryExportService.exportPurchaseOperationsByUser(userId, format, gzip, outputStream);
+        } else {
+            return outputStream -> purchaseHistoryExportService.exportPurchaseOperationsByUser(authToken.getUserId(), format, gzip, outputStream);
+        }
+    }
+
+    @Override
+    public StreamingResponseBody exportPurchaseHistoryForShop(TransferAuthTokenDto authToken, String shopId, ExportFormat format, boolean gzip) {
+        if (authToken.getRole().equals(ADMIN.name()) || shopsService.isUserOwnerOfShop(authToken.getUserId(), shopId)) {
+            return outputStream -> purchaseHistoryExportService.exportPurchaseOperationsByShop(shopId, format, gzip, outputStream);
+        } else {
+            throw new ResourceException(UNAUTHORIZED, "User is not owner of the shop.");
+        }
+    }
+
+    @Override
+    public TransferSalesStatisticsDto getSalesStatisticsForShop(TransferAuthTokenDto authToken, String shopId, SalesPeriod period, LocalDate date) {
+        if (authToken.getRole().equals(ADMIN.name()) || shopsService.isUserOwnerOfShop(authToken.getUserId(), shopId)) {
+            return salesRollupsService.getShopSalesStatistics(shopId, period, date == null ? LocalDate.now() : date);
+        } else {
+            throw new ResourceException(UNAUTHORIZED, "User is not owner of the shop.");
+        }
+    }
+
+    @Override
+    public TransferSalesStatisticsDto getSalesStatisticsForShopByProductName(TransferAuthTokenDto authToken, String shopId, String productName, SalesPeriod period, LocalDate date) {
+        if (authToken.getRole().equals(ADMIN.name()) || shopsService.isUserOwnerOfShop(authToken.getUserId(), shopId)) {
+            return salesRollupsService.getShopProductSalesStatistics(shopId, productName, period, date == null ? LocalDate.now() : date);
+        } else {
+            throw new ResourceException(UNAUTHORIZED, "User is not owner of the shop.");
+        }
+    }
+
+    @Override
+    public void rebuildSalesStatistics(TransferAuthTokenDto authToken) {
+        salesRollupsService.startSalesRollupsRebuild();
+    }
+
 }
@@ -5,27 +5,45 @@ import com.flamelab.shopserver.dtos.create.CreatePurchaseOperationDto;
 import com.flamelab.shopserver.dtos.create.CreateShopDto;
 import com.flamelab.shopserver.dtos.create.CreateWalletDto;
 import com.flamelab.shopserver.dtos.transfer.TransferAuthTokenDto;
+import com.flamelab.shopserver.dtos.transfer.TransferAutocompleteDto;
+import com.flamelab.shopserver.dtos.transfer.TransferBestsellerDto;
+import com.flamelab.shopserver.dtos.transfer.TransferPageDto;
 import com.flamelab.shopserver.dtos.transfer.TransferProductDto;
+import com.flamelab.shopserver.dtos.transfer.TransferProductsImportDto;
 import com.flamelab.shopserver.dtos.transfer.TransferShopDto;
+import com.flamelab.shopserver.dtos.update.UpdateProductStockDto;
 import com.flamelab.shopserver.entities.Product;
 import com.flamelab.shopserver.entities.Shop;
 import com.flamelab.shopserver.entities.User;
 import com.flamelab.shopserver.entities.Wallet;
+import com.flamelab.shopserver.enums.ExportFormat;
 import com.flamelab.shopserver.exceptions.ResourceException;
 import com.flamelab.shopserver.managers.ShopsManager;
 import com.flamelab.shopserver.mappers.ProductMapper;
 import com.flamelab.shopserver.mappers.ShopMapper;
 import com.flamelab.shopserver.services.*;
+import com.flamelab.shopserver.utiles.AfterCommitExecutor;
+import com.flamelab.shopserver.utiles.PageRequestProvider;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.InputStream;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import static com.flamelab.shopserver.entities.PurchaseOperation.STOCK_MERCHANT_ID;
+import static com.flamelab.shopserver.entities.PurchaseOperation.STOCK_MERCHANT_NAME;
 import static com.flamelab.shopserver.enums.NumberActionType.*;
 import static com.flamelab.shopserver.enums.WalletOwnerTypes.SHOP_OWNER;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 
 @Service
 @RequiredArgsConstructor
@@ -36,9 +54,16 @@ public class ShopsManagerImpl implements ShopsManager {
     private final UsersService usersService;
     private final ProductsService productsService;
     private final PurchaseOperationsService purchaseOperationsService;
+    private final ProductsImportService productsImportService;
+    private final BestsellersService bestsellersService;
+    private final ProductRecommendationsService productRecommendationsService;
+    private final AutocompleteService autocompleteService;
     private final ShopMapper shopMapper;
     private final ProductMapper productMapper;
+    private final PageRequestProvider pageRequestProvider;
+    private final AfterCommitExecutor afterCommitExecutor;
     private final int START_SHOP_MONEY = 1000;
+    private final Set<String> SHOPS_SORTABLE_FIELDS = Set.of("id", "createdDate", "name");
 
     @Override
     public TransferShopDto createShop(TransferAuthTokenDto authToken, CreateShopDto createShopDto) {
@@ -46,8 +71,6 @@ public class ShopsManagerImpl implements ShopsManager {
         Wallet wallet = walletsService.createWallet(new CreateWalletDto(START_SHOP_MONEY));
         Shop shop = shopsService.createShop(createShopDto, wallet.getId(), authToken.getUserId());
         walletsService.setWalletOwner(wallet.getId(), SHOP_OWNER, shop.getId(), shop.getName());
-        List<Shop> allShopsByOwnerId = shopsService.getAllShopsByOwnerId(authToken.getUserId());
-        walletsService.getAllWalletsByShopsIds(allShopsByOwnerId.stream().map(Shop::getId).collect(Collectors.toList()));
         return shopMapper.mapToDto(shopsService.getShopById(shop.getId()), walletsService.getWalletById(wallet.getId()));
     }
 
@@ -58,23 +81,28 @@ public class ShopsManagerImpl implements ShopsManager {
 
     @Override
     public List<TransferShopDto> getAllShops(TransferAuthTokenDto authToken) {
-        List<Shop> allShopsByOwnerId = shopsService.getAllShops();
-        List<Wallet> allWalletsByShopsIds = walletsService.getAllWalletsByShopsIds(allShopsByOwnerId.stream().map(Shop::getId).collect(Collectors.toList()));
-        return shopMapper.mapToDtoList(shopsService.getAllShops(), allWalletsByShopsIds);
+        return shopsService.getAllShopsWithWallets();
+    }
+
+    @Override
+    public TransferPageDto<TransferShopDto> getShopsPage(TransferAuthTokenDto authToken, int page, int size, String sort, Sort.Direction direction, String after) {
+        if (after != null) {
+            List<TransferShopDto> shops = shopsService.getShopsWithWalletsAfterId(after, pageRequestProvider.provideKeysetPageRequest(size));
+            String nextAfter = shops.size() == size ? shops.get(shops.size() - 1).getId() : null;
+            return new TransferPageDto<>(shops, 0, size, null, nextAfter);
+        }
+        Page<TransferShopDto> shopsPage = shopsService.getShopsWithWalletsPage(pageRequestProvider.providePageRequest(page, size, sort, direction, SHOPS_SORTABLE_FIELDS));
+        return new TransferPageDto<>(shopsPage.getContent(), page, size, shopsPage.getTotalElements(), null);
     }
 
     @Override
     public List<TransferShopDto> getAllShopsByOwnerId(TransferAuthTokenDto authToken, String ownerId) {
-        List<Shop> allShopsByOwnerId = shopsService.getAllShopsByOwnerId(ownerId);
-        List<Wallet> allWalletsByShopsIds = walletsService.getAllWalletsByShopsIds(allShopsByOwnerId.stream().map(Shop::getId).collect(Collectors.toList()));
-        return shopMapper.mapToDtoList(allShopsByOwnerId, allWalletsByShopsIds);
+        return shopsService.getAllShopsWithWalletsByOwnerId(ownerId);
     }
 
     @Override
     public List<TransferShopDto> getAllShopsByTextInParameters(TransferAuthTokenDto authToken, String text) {
-        List<Shop> allShopsByOwnerId = shopsService.getAllShopsByOwnerId(authToken.getUserId());
-        List<Wallet> allWalletsByShopsIds = walletsService.getAllWalletsByShopsIds(allShopsByOwnerId.stream().map(Shop::getId).collect(Collectors.toList()));
-        return shopMapper.mapToDtoList(shopsService.getAllShopsByTextInName(text), allWalletsByShopsIds);
+        return shopsService.getAllShopsWithWalletsByTextInName(text);
     }
 
     @Override
@@ -82,11 +110,31 @@ public class ShopsManagerImpl implements ShopsManager {
         return productMapper.mapToDtoList(productsService.searchAllProductsByText(text));
     }
 
+    @Override
+    public List<TransferAutocompleteDto> getAutocompleteCompletions(TransferAuthTokenDto authToken, String prefix, int limit) {
+        return autocompleteService.getCompletions(prefix, limit);
+    }
+
     @Override
     public List<TransferProductDto> getAllProductsInTheShop(TransferAuthTokenDto authToken, String shopId) {
         return productMapper.mapToDtoList(productsService.getAllProductsByShopId(shopId));
     }
 
+    @Override
+    public List<TransferBestsellerDto> getBestsellersInTheShop(TransferAuthTokenDto authToken, String shopId, int limit) {
+        return bestsellersService.getShopBestsellers(shopId, limit);
+    }
+
+    @Override
+    public List<TransferBestsellerDto> getBestsellers(TransferAuthTokenDto authToken, int limit) {
+        return bestsellersService.getGlobalBestsellers(limit);
+    }
+
+    @Override
+    public List<TransferProductDto> getRelatedProducts(TransferAuthTokenDto authToken, String productId, int limit) {
+        return productMapper.mapToDtoList(productsService.getAllProductsByIds(productRecommendationsService.getRelatedProductIds(productId, limit)));
+    }
+
     @Override
     public TransferShopDto renameShop(TransferAuthTokenDto authToken, String shopId, String newName) {
         Wallet walletByOwnerId = walletsService.getWalletByOwnerId(authToken.getUserId());
@@ -104,16 +152,24 @@ public class ShopsManagerImpl implements ShopsManager {
         Shop shop = shopsService.getShopById(shopId);
         double finalPrice = productAmount * price;
         if (walletsService.isWalletHasEnoughAmountForPurchase(shopWallet.getId(), finalPrice)) {
-            Product product = productsService.createProduct(new CreateProductDto(shopId, productName, productAmount, price));
+            Product product = productsService.addProductFromTheStock(new CreateProductDto(shopId, productName, productAmount, price));
             walletsService.updateWalletAmount(shopWallet.getId(), DECREASE, finalPrice);
             purchaseOperationsService.createPurchaseOperation(
-                    new CreatePurchaseOperationDto(productName, productAmount, finalPrice, "22222222-2222-2222-2222-222222222222", "Stock", shopId, shop.getName()));
+                    new CreatePurchaseOperationDto(product.getId(), productName, productAmount, finalPrice, STOCK_MERCHANT_ID, STOCK_MERCHANT_NAME, shopId, shop.getName()));
             return productMapper.mapToDto(product);
         } else {
             throw new ResourceException(BAD_REQUEST, String.format("Shop with name '%s' has not enough money for making this purchase.", shop.getName()));
         }
     }
 
+    @Override
+    public TransferProductsImportDto importProductsShopFromTheStock(TransferAuthTokenDto authToken, String shopId, ExportFormat format, InputStream inputStream) {
+        if (!shopsService.isUserOwnerOfShop(authToken.getUserId(), shopId)) {
+            throw new ResourceException(UNAUTHORIZED, "User is not owner of the shop.");
+        }
+        return productsImportService.importProductsFromTheStock(shopsService.getShopById(shopId), format, inputStream);
+    }
+
     @Override
     public TransferProductDto buyExistsProductsShopFromTheStock(TransferAuthTokenDto authToken, String shopId, String productId, double productCost, int productAmount) {
         Wallet shopWallet = walletsService.getWalletByOwnerId(shopId);
@@ -124,7 +180,7 @@ public class ShopsManagerImpl implements ShopsManager {
             Product product = productsService.setProductPrice(productId, productCost);
             walletsService.updateWalletAmount(shopWallet.getId(), DECREASE, finalPrice);
             purchaseOperationsService.createPurchaseOperation(
-                    new CreatePurchaseOperationDto(product.getName(), productAmount, finalPrice, "22222222-2222-2222-2222-222222222222", "Stock", shopId, shop.getName()));
+                    new CreatePurchaseOperationDto(product.getId(), product.getName(), productAmount, finalPrice, STOCK_MERCHANT_ID, STOCK_MERCHANT_NAME, shopId, shop.getName()));
             return productMapper.mapToDto(product);
         } else {
             throw new ResourceException(BAD_REQUEST, String.format("Shop with name '%s' has not enough money for making this purchase.", shop.getName()));
@@ -145,7 +201,8 @@ public class ShopsManagerImpl implements ShopsManager {
                 walletsService.updateWalletAmount(userWallet.getId(), DECREASE, finalPrice);
                 walletsService.updateWalletAmount(shopWallet.getId(), INCREASE, finalPrice);
                 purchaseOperationsService.createPurchaseOperation(
-                        new CreatePurchaseOperationDto(product.getName(), productAmount, finalPrice, shopId, shop.getName(), authToken.getUserId(), user.getUsername()));
+                        new CreatePurchaseOperationDto(product.getId(), product.getName(), productAmount, finalPrice, shopId, shop.getName(), authToken.getUserId(), user.getUsername()));
+                bestsellersService.registerPurchase(shopId, product.getId(), product.getName(), productAmount);
                 return productMapper.mapToDto(product);
             } else {
                 throw new ResourceException(BAD_REQUEST, String.format("User with name '%s' has not enough amount in the wallet", user.getUsername()));
@@ -155,6 +212,34 @@ public class ShopsManagerImpl implements ShopsManager {
         }
     }
 
+    @Override
+    @Transactional
+    public List<TransferProductDto> updateProductsInTheShop(TransferAuthTokenDto authToken, String shopId, List<UpdateProductStockDto> updateProductStockDtos) {
+        if (!shopsService.isUserOwnerOfShop(authToken.getUserId(), shopId)) {
+            throw new ResourceException(UNAUTHORIZED, "User is not owner of the shop.");
+        }
+        verifyProductStockUpdates(updateProductStockDtos);
+        List<UpdateProductStockDto> restocks = updateProductStockDtos.stream()
+                .filter(update -> update.getAmountAction() == INCREASE)
+                .toList();
+        double restockPrice = restocks.stream().mapToDouble(update -> update.getAmount() * update.getPrice()).sum();
+        Shop shop = shopsService.getShopById(shopId);
+        Wallet shopWallet = walletsService.getWalletByOwnerId(shopId);
+        if (!walletsService.isWalletHasEnoughAmountForPurchase(shopWallet.getId(), restockPrice)) {
+            throw new ResourceException(BAD_REQUEST, String.format("Shop with name '%s' has not enough money for making this purchase.", shop.getName()));
+        }
+        List<Product> products = productsService.updateProductsInTheShop(shopId, updateProductStockDtos);
+        if (!restocks.isEmpty()) {
+            Map<String, String> productNames = products.stream().collect(Collectors.toMap(Product::getId, Product::getName));
+            walletsService.updateWalletAmount(shopWallet.getId(), DECREASE, restockPrice);
+            purchaseOperationsService.createPurchaseOperations(restocks.stream()
+                    .map(update -> new CreatePurchaseOperationDto(update.getProductId(), productNames.get(update.getProductId()), update.getAmount(), update.getAmount() * update.getPrice(),
+                            STOCK_MERCHANT_ID, STOCK_MERCHANT_NAME, shopId, shop.getName()))
+                    .toList());
+        }
+        return productMapper.mapToDtoList(products);
+    }
+
     @Override
     public TransferProductDto setProductPrice(TransferAuthTokenDto authToken, String productId, double newPrice) {
         return productMapper.mapToDto(productsService.setProductPrice(productId, newPrice));
@@ -176,12 +261,37 @@ public class ShopsManagerImpl implements ShopsManager {
     }
 
     @Override
+    @Transactional
     public void deleteShop(TransferAuthTokenDto authToken, String shopId) {
+        List<String> shopIds = Collections.singletonList(shopId);
         shopsService.deleteShop(shopId);
-        List<String> productsIds = productsService.getAllProductsByShopId(shopId).stream().map(Product::getId).toList();
-        productsService.deleteProducts(productsIds);
-        Wallet shopWallet = walletsService.getWalletByOwnerId(shopId);
-        walletsService.deleteWallet(shopWallet.getId());
+        productsService.deleteProductsByShopIds(shopIds);
+        walletsService.deleteWalletsByOwnerIds(shopIds);
+        afterCommitExecutor.execute(() -> bestsellersService.removeShop(shopId));
+    }
+
+    private void verifyProductStockUpdates(List<UpdateProductStockDto> updateProductStockDtos) {
+        if (updateProductStockDtos == null || updateProductStockDtos.isEmpty()) {
+            throw new ResourceException(BAD_REQUEST, "List of product updates is empty.");
+        }
+        Set<String> productIds = new HashSet<>();
+        for (UpdateProductStockDto update : updateProductStockDtos) {
+            if (update.getProductId() == null || !productIds.add(update.getProductId())) {
+                throw new ResourceException(BAD_REQUEST, String.format("Product id '%s' is missing or repeated in the updates.", update.getProductId()));
+            }
+            if (update.getPrice() != null && (!Double.isFinite(update.getPrice()) || update.getPrice() <= 0)) {
+                throw new ResourceException(BAD_REQUEST, String.format("Price of product with id '%s' must be positive.", update.getProductId()));
+            }
+            if (update.getAmountAction() == null) {
+                if (update.getAmount() != null) {
+                    throw new ResourceException(BAD_REQUEST, String.format("Amount of product with id '%s' is set without an amount action.", update.getProductId()));
+                }
+            } else if (update.getAmount() == null || update.getAmount() < 0) {
+                throw new ResourceException(BAD_REQUEST, String.format("Amount of product with id '%s' must not be negative.", update.getProductId()));
+            } else if (update.getAmountAction() == INCREASE && update.getPrice() == null) {
+                throw new ResourceException(BAD_REQUEST, String.format("Restock of product with id '%s' needs the price of a unit.", update.getProductId()));
+            }
+        }
     }
 
     private void verifyNewShopData(CreateShopDto createShopDto) {
@@ -4,27 +4,33 @@ import com.flamelab.shopserver.dtos.create.CreateTemporaryCodeDto;
 import com.flamelab.shopserver.dtos.create.CreateUserDto;
 import com.flamelab.shopserver.dtos.create.CreateWalletDto;
 import com.flamelab.shopserver.dtos.transfer.TransferAuthTokenDto;
+import com.flamelab.shopserver.dtos.transfer.TransferPageDto;
 import com.flamelab.shopserver.dtos.transfer.TransferTemporaryCodeDto;
 import com.flamelab.shopserver.dtos.transfer.TransferUserDto;
 import com.flamelab.shopserver.dtos.transfer.TransferValidationResultDto;
 import com.flamelab.shopserver.dtos.update.RecoverPasswordDto;
 import com.flamelab.shopserver.dtos.update.UpdateUserDto;
 import com.flamelab.shopserver.dtos.update.UpdateUserPasswordDto;
-import com.flamelab.shopserver.entities.Shop;
 import com.flamelab.shopserver.entities.User;
 import com.flamelab.shopserver.entities.Wallet;
+import com.flamelab.shopserver.enums.WalletOwnerTypes;
 import com.flamelab.shopserver.exceptions.ResourceException;
 import com.flamelab.shopserver.managers.UsersManager;
 import com.flamelab.shopserver.mappers.UsersMapper;
 import com.flamelab.shopserver.services.*;
+import com.flamelab.shopserver.utiles.AfterCommitExecutor;
 import com.flamelab.shopserver.utiles.EmailTextProvider;
+import com.flamelab.shopserver.utiles.PageRequestProvider;
 import com.flamelab.shopserver.utiles.RandomDataGenerator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import static com.flamelab.shopserver.enums.Roles.ADMIN;
 import static com.flamelab.shopserver.enums.Roles.MERCHANT;
@@ -41,30 +47,27 @@ public class UsersManagerImpl implements UsersManager {
     private final WalletsService walletsService;
     private final ShopsService shopsService;
     private final ProductsService productsService;
+    private final BestsellersService bestsellersService;
     private final UsersMapper usersMapper;
-//    private final SendEmailService sendEmailService;
+    private final SendEmailService sendEmailService;
     private final EmailTextProvider emailTextProvider;
     private final TemporaryCodeService temporaryCodeService;
     private final RandomDataGenerator randomDataGenerator;
+    private final PageRequestProvider pageRequestProvider;
+    private final AfterCommitExecutor afterCommitExecutor;
     private final int START_USER_MONEY = 0;
+    private final Set<String> USERS_SORTABLE_FIELDS = Set.of("id", "createdDate", "username", "email");
 
     @Override
+    @Transactional
     public TransferUserDto createUser(CreateUserDto createUserDto) {
-        validateNewUserData(createUserDto);
-        Wallet wallet = walletsService.createWallet(new CreateWalletDto(START_USER_MONEY));
-        User user = usersService.createUser(createUserDto);
-        usersService.addWalletToUser(user.getId(), wallet.getId());
-        walletsService.setWalletOwner(wallet.getId(), USER_OWNER, user.getId(), user.getUsername());
-        sendRegistrationTemporaryCodeToEmail(user.getEmail(), user.getId());
-        return usersMapper.mapToDto(usersService.getUserById(user.getId()), walletsService.getWalletById(wallet.getId()));
+        return registerUser(createUserDto, USER_OWNER);
     }
 
     @Override
+    @Transactional
     public TransferUserDto createUserAdmin(TransferAuthTokenDto authToken, CreateUserDto createUserDto) {
-        TransferUserDto user = createUser(createUserDto);
-        Wallet wallet = walletsService.getWalletByOwnerId(user.getId());
-        walletsService.setWalletOwner(wallet.getId(), ADMIN_OWNER, user.getId(), user.getUsername());
-        return user;
+        return registerUser(createUserDto, ADMIN_OWNER);
     }
 
     @Override
@@ -74,10 +77,8 @@ public class UsersManagerImpl implements UsersManager {
 
     @Override
     public TransferValidationResultDto verifyTempCode(TransferTemporaryCodeDto tempCodeDto) {
-        if (temporaryCodeService.validateTempCode(tempCodeDto.getTempCode())) {
-            TransferValidationResultDto tempCodeValidationResult = new TransferValidationResultDto(true);
-            temporaryCodeService.deleteTemporaryCode(tempCodeDto.getTempCode());
-            return tempCodeValidationResult;
+        if (temporaryCodeService.consumeTemporaryCode(tempCodeDto.getEmail(), tempCodeDto.getTempCode())) {
+            return new TransferValidationResultDto(true);
         } else {
             throw new ResourceException(BAD_REQUEST, "Entered temporary code is not correct.");
         }
@@ -85,10 +86,11 @@ public class UsersManagerImpl implements UsersManager {
 
     @Override
     public TransferUserDto confirmRegistration(String userId, int tempCode) {
-        verifyTempCode(new TransferTemporaryCodeDto(tempCode));
-        TransferUserDto userDto = usersMapper.mapToDto(usersService.activateUser(userId), walletsService.getWalletByOwnerId(userId));
-        temporaryCodeService.deleteTemporaryCode(tempCode);
-        return userDto;
+        User user = usersService.getUserById(userId);
+        if (!temporaryCodeService.consumeTemporaryCode(user.getEmail(), tempCode)) {
+            throw new ResourceException(BAD_REQUEST, "Entered temporary code is not correct.");
+        }
+        return usersMapper.mapToDto(usersService.activateUser(userId), walletsService.getWalletByOwnerId(userId));
     }
 
     @Override
@@ -103,16 +105,23 @@ public class UsersManagerImpl implements UsersManager {
 
     @Override
     public List<TransferUserDto> getAllUsersByTextInParameters(TransferAuthTokenDto authToken, String text) {
-        List<User> users = usersService.getAllUsersByTextInParameters(text);
-        List<Wallet> wallets = walletsService.getWalletsByOwnerIds(users.stream().map(User::getId).collect(Collectors.toList()));
-        return usersMapper.mapToDtoList(users, wallets);
+        return usersService.searchUsersWithWallets(text);
     }
 
     @Override
     public List<TransferUserDto> getAllUsers(TransferAuthTokenDto authToken) {
-        List<User> users = usersService.getAllUsers();
-        List<Wallet> wallets = walletsService.getWalletsByOwnerIds(users.stream().map(User::getId).collect(Collectors.toList()));
-        return usersMapper.mapToDtoList(users, wallets);
+        return usersService.getAllUsersWithWallets();
+    }
+
+    @Override
+    public TransferPageDto<TransferUserDto> getUsersPage(TransferAuthTokenDto authToken, int page, int size, String sort, Sort.Direction direction, String after) {
+        if (after != null) {
+            List<TransferUserDto> users = usersService.getUsersWithWalletsAfterId(after, pageRequestProvider.provideKeysetPageRequest(size));
+            String nextAfter = users.size() == size ? users.get(users.size() - 1).getId() : null;
+            return new TransferPageDto<>(users, 0, size, null, nextAfter);
+        }
+        Page<TransferUserDto> usersPage = usersService.getUsersWithWalletsPage(pageRequestProvider.providePageRequest(page, size, sort, direction, USERS_SORTABLE_FIELDS));
+        return new TransferPageDto<>(usersPage.getContent(), page, size, usersPage.getTotalElements(), null);
     }
 
     @Override
@@ -152,17 +161,33 @@ public class UsersManagerImpl implements UsersManager {
     }
 
     @Override
+    @Transactional
     public void deleteUser(TransferAuthTokenDto authToken, String userId) {
         usersService.deleteUser(userId);
+        List<String> walletOwnerIds = new ArrayList<>();
         if (authToken.getRole().equals(MERCHANT.name())) {
-            List<String> shopIds = shopsService.getAllShopsByOwnerId(userId).stream().map(Shop::getId).toList();
+            List<String> shopIds = shopsService.getAllShopIdsByOwnerId(userId);
             shopsService.deleteShops(shopIds);
             productsService.deleteProductsByShopIds(shopIds);
+            afterCommitExecutor.execute(() -> shopIds.forEach(bestsellersService::removeShop));
+            walletOwnerIds.addAll(shopIds);
         }
         if (!authToken.getRole().equals(ADMIN.name())) {
-            Wallet userWallet = walletsService.getWalletByOwnerId(userId);
-            walletsService.deleteWallet(userWallet.getId());
+            walletOwnerIds.add(userId);
         }
+        walletsService.deleteWalletsByOwnerIds(walletOwnerIds);
+    }
+
+    // the user and the wallet reference each other, so both ids are generated before anything is written
+    // and each row is inserted once already complete
+    private TransferUserDto registerUser(CreateUserDto createUserDto, WalletOwnerTypes walletOwnerType) {
+        validateNewUserData(createUserDto);
+        String userId = randomDataGenerator.generateId();
+        String walletId = randomDataGenerator.generateId();
+        Wallet wallet = walletsService.createWallet(walletId, new CreateWalletDto(START_USER_MONEY), walletOwnerType, userId, createUserDto.getName());
+        User user = usersService.createUser(userId, createUserDto, walletId);
+        sendRegistrationTemporaryCodeToEmail(user.getEmail(), user.getId());
+        return usersMapper.mapToDto(user, wallet);
     }
 
     private void validateNewUserData(CreateUserDto createUserDto) {
@@ -176,25 +201,21 @@ public class UsersManagerImpl implements UsersManager {
 
     private void sendRegistrationTemporaryCodeToEmail(String email, String userId) {
         CreateTemporaryCodeDto createTemporaryCodeDto = new CreateTemporaryCodeDto(email, randomDataGenerator.generateTemporaryCode());
-        int tempCode = temporaryCodeService.generateTemporaryCode(createTemporaryCodeDto).getTempCode();
-        if (usersService.isUserExistsByEmail(email)) {
-//            sendEmailService.sendEmail(
-//                    email,
-//                    "Registration confirmation",
-//                    emailTextProvider.provideConfirmRegistrationText(userId, tempCode));
-        } else {
-            throw new ResourceException(NO_CONTENT, String.format("User with email '%s' does not exists", email));
-        }
+        int tempCode = temporaryCodeService.generateTemporaryCode(createTemporaryCodeDto);
+        sendEmailService.sendEmail(
+                email,
+                "Registration confirmation",
+                emailTextProvider.provideConfirmRegistrationText(userId, tempCode));
     }
 
     private void sendPasswordRecoveryTemporaryCodeToEmail(String email) {
         CreateTemporaryCodeDto createTemporaryCodeDto = new CreateTemporaryCodeDto(email, randomDataGenerator.generateTemporaryCode());
-        int tempCode = temporaryCodeService.generateTemporaryCode(createTemporaryCodeDto).getTempCode();
+        int tempCode = temporaryCodeService.generateTemporaryCode(createTemporaryCodeDto);
         if (usersService.isUserExistsByEmail(email)) {
-//            sendEmailService.sendEmail(
-//                    email,
-//                    "Password Recovery",
-//                    emailTextProvider.providePasswordRecoverySendTempCodeText(tempCode));
+            sendEmailService.sendEmail(
+                    email,
+                    "Password Recovery",
+                    emailTextProvider.providePasswordRecoverySendTempCodeText(tempCode));
         } else {
             throw new ResourceException(NO_CONTENT, String.format("User with email '%s' does not exists", email));
         }
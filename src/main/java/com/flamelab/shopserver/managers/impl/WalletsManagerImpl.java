@@ -5,6 +5,7 @@ import com.flamelab.shopserver.dtos.create.wallet_operations.CreateShopWithdrawD
 import com.flamelab.shopserver.dtos.create.wallet_operations.CreateUserDepositData;
 import com.flamelab.shopserver.dtos.create.wallet_operations.CreateUserWithdrawData;
 import com.flamelab.shopserver.dtos.transfer.TransferAuthTokenDto;
+import com.flamelab.shopserver.dtos.transfer.TransferPageDto;
 import com.flamelab.shopserver.dtos.transfer.TransferWalletDto;
 import com.flamelab.shopserver.entities.Shop;
 import com.flamelab.shopserver.entities.User;
@@ -14,10 +15,14 @@ import com.flamelab.shopserver.mappers.WalletMapper;
 import com.flamelab.shopserver.services.ShopsService;
 import com.flamelab.shopserver.services.UsersService;
 import com.flamelab.shopserver.services.WalletsService;
+import com.flamelab.shopserver.utiles.PageRequestProvider;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Set;
 
 import static com.flamelab.shopserver.enums.NumberActionType.*;
 
@@ -29,6 +34,8 @@ public class WalletsManagerImpl implements WalletsManager {
     private final UsersService usersService;
     private final ShopsService shopsService;
     private final WalletMapper walletMapper;
+    private final PageRequestProvider pageRequestProvider;
+    private final Set<String> WALLETS_SORTABLE_FIELDS = Set.of("id", "createdDate");
 
     @Override
     public TransferWalletDto getWalletById(TransferAuthTokenDto authToken, String walletId) {
@@ -40,6 +47,17 @@ public class WalletsManagerImpl implements WalletsManager {
         return walletMapper.mapToDtoList(walletsService.getAllWallets());
     }
 
+    @Override
+    public TransferPageDto<TransferWalletDto> getWalletsPage(TransferAuthTokenDto authToken, int page, int size, String sort, Sort.Direction direction, String after) {
+        if (after != null) {
+            List<Wallet> wallets = walletsService.getWalletsAfterId(after, pageRequestProvider.provideKeysetPageRequest(size));
+            String nextAfter = wallets.size() == size ? wallets.get(wallets.size() - 1).getId() : null;
+            return new TransferPageDto<>(walletMapper.mapToDtoList(wallets), 0, size, null, nextAfter);
+        }
+        Page<Wallet> walletsPage = walletsService.getWalletsPage(pageRequestProvider.providePageRequest(page, size, sort, direction, WALLETS_SORTABLE_FIELDS));
+        return new TransferPageDto<>(walletMapper.mapToDtoList(walletsPage.getContent()), page, size, walletsPage.getTotalElements(), null);
+    }
+
     @Override
     public TransferWalletDto getWalletByOwnerId(TransferAuthTokenDto authToken, String ownerId) {
         return walletMapper.mapToDto(walletsService.getWalletByOwnerId(ownerId));
@@ -38,7 +38,7 @@ public class AuthTokenMapper {
                 .collect(Collectors.toList());
     }
 
-    public AuthToken generateAuthToken(User user) {
+    public AuthToken generateAuthToken(User user, LocalDateTime expiresDate) {
         AuthToken entity = new AuthToken();
         entity.setId(randomDataGenerator.generateId());
         entity.setCreatedDate(LocalDateTime.now());
@@ -48,7 +48,8 @@ public class AuthTokenMapper {
         entity.setTokenType(BEARER.getTypeName());
         entity.setEmail(user.getEmail());
         entity.setRole(user.getRole());
-        entity.setUsageAmount(0);
+        entity.setLastUsedDate(LocalDateTime.now());
+        entity.setExpiresDate(expiresDate);
         return entity;
     }
 
@@ -22,6 +22,7 @@ public class PurchaseOperationMapper {
         dto.setId(entity.getId());
         dto.setCreatedDate(entity.getCreatedDate());
         dto.setLastUpdatedDate(entity.getLastUpdatedDate());
+        dto.setProductId(entity.getProductId());
         dto.setProductName(entity.getProductName());
         dto.setAmount(entity.getAmount());
         dto.setPrice(entity.getPrice());
@@ -43,6 +44,7 @@ public class PurchaseOperationMapper {
         entity.setId(randomDataGenerator.generateId());
         entity.setCreatedDate(LocalDateTime.now());
         entity.setLastUpdatedDate(LocalDateTime.now());
+        entity.setProductId(createDto.getProductId());
         entity.setProductName(createDto.getProductName());
         entity.setAmount(createDto.getAmount());
         entity.setPrice(createDto.getPrice());
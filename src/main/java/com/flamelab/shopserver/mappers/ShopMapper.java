@@ -4,18 +4,11 @@ import com.flamelab.shopserver.dtos.create.CreateShopDto;
 import com.flamelab.shopserver.dtos.transfer.TransferShopDto;
 import com.flamelab.shopserver.entities.Shop;
 import com.flamelab.shopserver.entities.Wallet;
-import com.flamelab.shopserver.exceptions.ResourceException;
 import com.flamelab.shopserver.utiles.RandomDataGenerator;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
-
-import static org.springframework.http.HttpStatus.NO_CONTENT;
 
 @Component
 @RequiredArgsConstructor
@@ -36,12 +29,6 @@ public class ShopMapper {
         return dto;
     }
 
-    public List<TransferShopDto> mapToDtoList(List<Shop> entityList, List<Wallet> walletList) {
-        return entityList.stream()
-                .map(shop -> mapToDto(shop, getWalletByOwnerId(shop.getId(), walletList)))
-                .collect(Collectors.toList());
-    }
-
     public Shop mapToEntity(CreateShopDto createDto, String walletId, String userId, String username) {
         Shop entity = new Shop();
         entity.setId(randomDataGenerator.generateId());
@@ -54,13 +41,4 @@ public class ShopMapper {
         return entity;
     }
 
-    private Wallet getWalletByOwnerId(String shopOwnerId, List<Wallet> walletList) {
-        Optional<Wallet> walletByOwnerId = walletList.stream().filter(wallet -> wallet.getOwnerId().equals(shopOwnerId)).findFirst();
-        if (walletByOwnerId.isPresent()) {
-            return walletByOwnerId.get();
-        } else {
-            throw new ResourceException(NO_CONTENT, String.format("No existing wallet by shop with id: %s", shopOwnerId));
-        }
-    }
-
 }
@@ -22,6 +22,7 @@ public class TemporaryCodeMapper {
         dto.setId(entity.getId());
         dto.setCreatedDate(entity.getCreatedDate());
         dto.setLastUpdatedDate(entity.getLastUpdatedDate());
+        dto.setEmail(entity.getEmail());
         dto.setTempCode(entity.getTempCode());
         return dto;
     }
@@ -32,13 +33,14 @@ public class TemporaryCodeMapper {
                 .collect(Collectors.toList());
     }
 
-    public TemporaryCode mapToEntity(CreateTemporaryCodeDto createDto) {
+    public TemporaryCode mapToEntity(CreateTemporaryCodeDto createDto, LocalDateTime expiresDate) {
         TemporaryCode entity = new TemporaryCode();
         entity.setId(randomDataGenerator.generateId());
         entity.setCreatedDate(LocalDateTime.now());
         entity.setLastUpdatedDate(LocalDateTime.now());
         entity.setTempCode(createDto.getTempCode());
         entity.setEmail(createDto.getEmail());
+        entity.setExpiresDate(expiresDate);
         return entity;
     }
 
@@ -5,15 +5,11 @@ import com.flamelab.shopserver.dtos.transfer.TransferUserDto;
 import com.flamelab.shopserver.entities.User;
 import com.flamelab.shopserver.entities.Wallet;
 import com.flamelab.shopserver.enums.Roles;
-import com.flamelab.shopserver.exceptions.ResourceException;
-import com.flamelab.shopserver.utiles.RandomDataGenerator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.stream.Collectors;
 
 import static com.flamelab.shopserver.enums.Roles.*;
@@ -24,7 +20,6 @@ import static org.springframework.http.HttpStatus.BAD_REQUEST;
 @RequiredArgsConstructor
 public class UsersMapper {
 
-    private final RandomDataGenerator randomDataGenerator;
     private final PasswordEncoder passwordEncoder;
 
     public TransferUserDto mapToDto(User entity, Wallet wallet) {
@@ -41,21 +36,10 @@ public class UsersMapper {
         return dto;
     }
 
-    public List<TransferUserDto> mapToDtoList(List<User> entityList, List<Wallet> walletList) {
-        List<TransferUserDto> transferDtoList = new ArrayList<>();
-        for (User user : entityList) {
-            transferDtoList.add(
-                    mapToDto(
-                            user,
-                            walletList.stream().filter(wallet -> wallet.getOwnerId().equals(user.getId())).findFirst().get()
-                    ));
-        }
-        return transferDtoList;
-    }
-
-    public User mapToEntity(CreateUserDto createDto) {
+    public User mapToEntity(String id, CreateUserDto createDto, String walletId) {
         User entity = new User();
-        entity.setId(randomDataGenerator.generateId());
+        entity.setId(id);
+        entity.setWalletId(walletId);
         entity.setCreatedDate(LocalDateTime.now());
         entity.setLastUpdatedDate(LocalDateTime.now());
         entity.setUsername(createDto.getName());
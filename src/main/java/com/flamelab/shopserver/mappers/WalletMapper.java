@@ -44,4 +44,13 @@ public class WalletMapper {
         wallet.setAmount(createDto.getAmount());
         return wallet;
     }
+
+    public Wallet mapToEntity(String id, CreateWalletDto createDto, WalletOwnerTypes ownerType, String ownerId, String ownerName) {
+        Wallet wallet = mapToEntity(createDto);
+        wallet.setId(id);
+        wallet.setOwnerType(ownerType.name());
+        wallet.setOwnerId(ownerId);
+        wallet.setOwnerName(ownerName);
+        return wallet;
+    }
 }
@@ -3,8 +3,13 @@ package com.flamelab.shopserver.repositories;
 import com.flamelab.shopserver.entities.AuthToken;
 import com.flamelab.shopserver.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -19,4 +24,14 @@ public interface AuthorizationRepository extends JpaRepository<AuthToken, String
 
     Optional<AuthToken> findByEmail(String email);
 
+    @Modifying
+    @Transactional
+    @Query("update AuthToken t set t.lastUsedDate = :lastUsedDate where t.id = :id")
+    int updateLastUsedDate(@Param("id") String id, @Param("lastUsedDate") LocalDateTime lastUsedDate);
+
+    @Modifying
+    @Transactional
+    @Query("delete from AuthToken t where t.token = :token")
+    int deleteByToken(@Param("token") String token);
+
 }
@@ -0,0 +1,45 @@
+package com.flamelab.shopserver.repositories;
+
+import com.flamelab.shopserver.entities.EmailOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, String> {
+
+    // claimed messages are leased until leaseUntil, so other instances skip them while they are being sent
+    // and they are picked up again if this instance stops before recording the result
+    @Transactional
+    @Query(value = "UPDATE email_outbox SET attempts = attempts + 1, next_attempt_date = :leaseUntil, last_updated_date = :now " +
+            "WHERE id IN (SELECT id FROM email_outbox WHERE status = 'PENDING' AND next_attempt_date <= :now " +
+            "ORDER BY next_attempt_date LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING *",
+            nativeQuery = true)
+    List<EmailOutboxMessage> claimPendingMessages(@Param("now") LocalDateTime now,
+                                                  @Param("leaseUntil") LocalDateTime leaseUntil,
+                                                  @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("delete from EmailOutboxMessage m where m.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<String> ids);
+
+    @Modifying
+    @Transactional
+    @Query("update EmailOutboxMessage m set m.status = :status, m.nextAttemptDate = :nextAttemptDate, m.lastError = :lastError, m.lastUpdatedDate = :updatedDate " +
+            "where m.id = :id")
+    int updateAfterFailedAttempt(@Param("id") String id,
+                                 @Param("status") String status,
+                                 @Param("nextAttemptDate") LocalDateTime nextAttemptDate,
+                                 @Param("lastError") String lastError,
+                                 @Param("updatedDate") LocalDateTime updatedDate);
+
+}
@@ -1,21 +1,74 @@
 package com.flamelab.shopserver.repositories;
 
 import com.flamelab.shopserver.entities.Product;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+
 @Repository
 public interface ProductsRepository extends JpaRepository<Product, String> {
 
+    String OWNER_SHOP_QUERY_CACHE_REGION = "products-by-owner-shop";
+
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = OWNER_SHOP_QUERY_CACHE_REGION)})
     List<Product> findByOwnerShopId(String ownerShopId);
 
     Optional<Product> findByOwnerShopIdAndName(String ownerShopId, String name);
 
     List<Product> findAllByOwnerShopId(String ownerShopId);
 
-    List<Product> findAllByNameContaining(String name);
+    // restocking a product with the same name in the shop adds to its amount instead of inserting a duplicate
+    @Transactional
+    @Query(value = "INSERT INTO products (id, created_date, last_updated_date, owner_shop_id, name, amount, price) " +
+            "VALUES (:id, :updatedDate, :updatedDate, :shopId, :name, :amount, :price) " +
+            "ON CONFLICT (owner_shop_id, name) DO UPDATE SET " +
+            "amount = products.amount + EXCLUDED.amount, " +
+            "price = EXCLUDED.price, " +
+            "last_updated_date = EXCLUDED.last_updated_date " +
+            "RETURNING *",
+            nativeQuery = true)
+    Product upsertProductByName(@Param("id") String id,
+                                @Param("updatedDate") LocalDateTime updatedDate,
+                                @Param("shopId") String shopId,
+                                @Param("name") String name,
+                                @Param("amount") int amount,
+                                @Param("price") double price);
+
+    @Query("select p.name from Product p where p.ownerShopId = :shopId")
+    List<String> findAllNamesByOwnerShopId(@Param("shopId") String shopId);
+
+    @Query("select p.id from Product p where p.ownerShopId in :shopIds")
+    List<String> findAllIdsByOwnerShopIdIn(@Param("shopIds") Collection<String> shopIds);
+
+    @Query("select distinct p.ownerShopId from Product p where p.id in :ids")
+    List<String> findAllOwnerShopIdsByIdIn(@Param("ids") Collection<String> ids);
+
+    @Modifying
+    @Transactional
+    @Query("delete from Product p where p.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<String> ids);
+
+    @Modifying
+    @Transactional
+    @Query("delete from Product p where p.ownerShopId in :shopIds")
+    int deleteAllByOwnerShopIdIn(@Param("shopIds") Collection<String> shopIds);
+
+    @Modifying
+    @Transactional
+    @Query("update Product p set p.deletedDate = :deletedDate where p.ownerShopId in :shopIds")
+    int markAllDeletedByOwnerShopIdIn(@Param("shopIds") Collection<String> shopIds, @Param("deletedDate") LocalDateTime deletedDate);
 
 }
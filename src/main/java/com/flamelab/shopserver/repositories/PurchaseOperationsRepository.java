@@ -1,12 +1,19 @@
 package com.flamelab.shopserver.repositories;
 
 import com.flamelab.shopserver.entities.PurchaseOperation;
-import com.flamelab.shopserver.entities.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface PurchaseOperationsRepository extends JpaRepository<PurchaseOperation, String> {
@@ -17,4 +24,17 @@ public interface PurchaseOperationsRepository extends JpaRepository<PurchaseOper
 
     List<PurchaseOperation> findAllByProductNameContaining(String productName);
 
+    List<PurchaseOperation> findAllByCustomerIdInOrderByCreatedDate(Collection<String> customerIds);
+
+    @Query("select distinct p.customerId from PurchaseOperation p where p.productId is not null and p.merchantId <> :stockMerchantId")
+    List<String> findAllCustomerIdsWithPurchasedProducts(@Param("stockMerchantId") String stockMerchantId);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select p from PurchaseOperation p where p.customerId = :customerId order by p.createdDate")
+    Stream<PurchaseOperation> streamAllByCustomerId(@Param("customerId") String customerId);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select p from PurchaseOperation p where p.merchantId = :shopId or p.customerId = :shopId order by p.createdDate")
+    Stream<PurchaseOperation> streamAllByShopId(@Param("shopId") String shopId);
+
 }
@@ -0,0 +1,35 @@
+package com.flamelab.shopserver.repositories;
+
+import com.flamelab.shopserver.entities.SalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Repository
+public interface SalesRollupsRepository extends JpaRepository<SalesRollup, String> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO sales_rollups (id, created_date, last_updated_date, shop_id, product_name, sales_date, purchases_count, units_amount, revenue) " +
+            "VALUES (:id, :updatedDate, :updatedDate, :shopId, :productName, :salesDate, 1, :unitsAmount, :revenue) " +
+            "ON CONFLICT (shop_id, product_name, sales_date) DO UPDATE SET " +
+            "purchases_count = sales_rollups.purchases_count + 1, " +
+            "units_amount = sales_rollups.units_amount + EXCLUDED.units_amount, " +
+            "revenue = sales_rollups.revenue + EXCLUDED.revenue, " +
+            "last_updated_date = EXCLUDED.last_updated_date",
+            nativeQuery = true)
+    void addPurchaseToSalesRollup(@Param("id") String id,
+                                  @Param("updatedDate") LocalDateTime updatedDate,
+                                  @Param("shopId") String shopId,
+                                  @Param("productName") String productName,
+                                  @Param("salesDate") LocalDate salesDate,
+                                  @Param("unitsAmount") long unitsAmount,
+                                  @Param("revenue") double revenue);
+
+}
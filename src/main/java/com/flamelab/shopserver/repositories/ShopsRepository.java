@@ -1,9 +1,18 @@
 package com.flamelab.shopserver.repositories;
 
+import com.flamelab.shopserver.dtos.transfer.TransferShopDto;
 import com.flamelab.shopserver.entities.Shop;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,4 +27,38 @@ public interface ShopsRepository extends JpaRepository<Shop, String> {
 
     boolean existsByName(String name);
 
+    @Query("select s.id from Shop s where s.ownerId = :ownerId")
+    List<String> findAllIdsByOwnerId(@Param("ownerId") String ownerId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from Shop s where s.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<String> ids);
+
+    @Modifying
+    @Transactional
+    @Query("update Shop s set s.deletedDate = :deletedDate where s.id in :ids")
+    int markAllDeletedByIdIn(@Param("ids") Collection<String> ids, @Param("deletedDate") LocalDateTime deletedDate);
+
+    @Query("select new com.flamelab.shopserver.dtos.transfer.TransferShopDto(s.id, s.createdDate, s.lastUpdatedDate, s.name, s.walletId, s.ownerId, s.ownerName, w.amount) " +
+            "from Shop s left join Wallet w on w.ownerId = s.id")
+    List<TransferShopDto> findAllShopsWithWallets();
+
+    @Query(value = "select new com.flamelab.shopserver.dtos.transfer.TransferShopDto(s.id, s.createdDate, s.lastUpdatedDate, s.name, s.walletId, s.ownerId, s.ownerName, w.amount) " +
+            "from Shop s left join Wallet w on w.ownerId = s.id",
+            countQuery = "select count(s) from Shop s")
+    Page<TransferShopDto> findAllShopsWithWallets(Pageable pageable);
+
+    @Query("select new com.flamelab.shopserver.dtos.transfer.TransferShopDto(s.id, s.createdDate, s.lastUpdatedDate, s.name, s.walletId, s.ownerId, s.ownerName, w.amount) " +
+            "from Shop s left join Wallet w on w.ownerId = s.id where s.id > :afterId")
+    List<TransferShopDto> findAllShopsWithWalletsAfterId(@Param("afterId") String afterId, Pageable pageable);
+
+    @Query("select new com.flamelab.shopserver.dtos.transfer.TransferShopDto(s.id, s.createdDate, s.lastUpdatedDate, s.name, s.walletId, s.ownerId, s.ownerName, w.amount) " +
+            "from Shop s left join Wallet w on w.ownerId = s.id where s.ownerId = :ownerId")
+    List<TransferShopDto> findAllShopsWithWalletsByOwnerId(@Param("ownerId") String ownerId);
+
+    @Query("select new com.flamelab.shopserver.dtos.transfer.TransferShopDto(s.id, s.createdDate, s.lastUpdatedDate, s.name, s.walletId, s.ownerId, s.ownerName, w.amount) " +
+            "from Shop s left join Wallet w on w.ownerId = s.id where s.name like concat('%', :text, '%')")
+    List<TransferShopDto> findAllShopsWithWalletsByNameContaining(@Param("text") String text);
+
 }
@@ -2,17 +2,23 @@ package com.flamelab.shopserver.repositories;
 
 import com.flamelab.shopserver.entities.TemporaryCode;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.time.LocalDateTime;
 
 @Repository
 public interface TemporaryCodeRepository extends JpaRepository<TemporaryCode, String> {
 
-    Optional<TemporaryCode> findByEmail(String email);
-
-    Optional<TemporaryCode> findByTempCode(int tempCode);
-
-    boolean existsByTempCode(int tempCode);
+    // validation and removal are one statement, so a code can be used only once even by concurrent requests
+    @Modifying
+    @Transactional
+    @Query("delete from TemporaryCode t where t.email = :email and t.tempCode = :tempCode and t.expiresDate > :now")
+    int deleteValidTemporaryCode(@Param("email") String email,
+                                 @Param("tempCode") int tempCode,
+                                 @Param("now") LocalDateTime now);
 
 }
@@ -1,24 +1,48 @@
 package com.flamelab.shopserver.repositories;
 
+import com.flamelab.shopserver.dtos.transfer.TransferUserDto;
 import com.flamelab.shopserver.entities.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 @Repository
 public interface UsersRepository extends JpaRepository<User, String> {
 
     Optional<User> findByEmail(String email);
 
-    Set<User> findAllByUsernameContaining(String username);
-
-    Set<User> findAllByEmailContaining(String email);
-
-    Set<User> findAllByRoleContaining(String role);
-
     boolean existsByEmail(String email);
 
+    @Modifying
+    @Transactional
+    @Query("delete from User u where u.id = :id")
+    int deleteUserById(@Param("id") String id);
+
+    @Query("select new com.flamelab.shopserver.dtos.transfer.TransferUserDto(u.id, u.createdDate, u.lastUpdatedDate, u.username, u.email, w.id, w.amount, u.role, u.isActive) " +
+            "from User u left join Wallet w on w.ownerId = u.id")
+    List<TransferUserDto> findAllUsersWithWallets();
+
+    @Query(value = "select new com.flamelab.shopserver.dtos.transfer.TransferUserDto(u.id, u.createdDate, u.lastUpdatedDate, u.username, u.email, w.id, w.amount, u.role, u.isActive) " +
+            "from User u left join Wallet w on w.ownerId = u.id",
+            countQuery = "select count(u) from User u")
+    Page<TransferUserDto> findAllUsersWithWallets(Pageable pageable);
+
+    @Query("select new com.flamelab.shopserver.dtos.transfer.TransferUserDto(u.id, u.createdDate, u.lastUpdatedDate, u.username, u.email, w.id, w.amount, u.role, u.isActive) " +
+            "from User u left join Wallet w on w.ownerId = u.id where u.id > :afterId")
+    List<TransferUserDto> findAllUsersWithWalletsAfterId(@Param("afterId") String afterId, Pageable pageable);
+
+    // lower(...) like matches the pg_trgm indexes from V2__schema_additions.sql, the role is compared as a whole value
+    @Query("select new com.flamelab.shopserver.dtos.transfer.TransferUserDto(u.id, u.createdDate, u.lastUpdatedDate, u.username, u.email, w.id, w.amount, u.role, u.isActive) " +
+            "from User u left join Wallet w on w.ownerId = u.id " +
+            "where lower(u.username) like :pattern escape '\\' or lower(u.email) like :pattern escape '\\' or u.role = :role")
+    List<TransferUserDto> searchUsersWithWallets(@Param("pattern") String pattern, @Param("role") String role, Pageable pageable);
+
 }
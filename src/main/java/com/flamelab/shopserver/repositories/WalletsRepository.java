@@ -1,9 +1,16 @@
 package com.flamelab.shopserver.repositories;
 
 import com.flamelab.shopserver.entities.Wallet;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +18,13 @@ public interface WalletsRepository extends JpaRepository<Wallet, String> {
 
     Optional<Wallet> findByOwnerId(String ownerId);
 
+    List<Wallet> findAllByOwnerIdIn(Collection<String> ownerIds);
+
+    List<Wallet> findAllByIdGreaterThan(String id, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("delete from Wallet w where w.ownerId in :ownerIds")
+    int deleteAllByOwnerIdIn(@Param("ownerIds") Collection<String> ownerIds);
+
 }
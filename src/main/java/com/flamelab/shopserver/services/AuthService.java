@@ -16,6 +16,6 @@ public interface AuthService {
 
     boolean isTokenExistsByEmail(String email);
 
-    void deleteTokenByTokenId(String tokenId);
+    void deleteToken(String token);
 
 }
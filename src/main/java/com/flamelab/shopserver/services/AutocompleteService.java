@@ -0,0 +1,26 @@
+package com.flamelab.shopserver.services;
+
+import com.flamelab.shopserver.dtos.transfer.TransferAutocompleteDto;
+import com.flamelab.shopserver.entities.Product;
+import com.flamelab.shopserver.entities.Shop;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AutocompleteService {
+
+    void registerShop(Shop shop);
+
+    void removeShops(Collection<String> shopIds);
+
+    void registerProduct(Product product);
+
+    void registerProducts(List<Product> products);
+
+    void removeProducts(Collection<String> productIds);
+
+    List<TransferAutocompleteDto> getCompletions(String prefix, int limit);
+
+    void rebuildAutocomplete();
+
+}
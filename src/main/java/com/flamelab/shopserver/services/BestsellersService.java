@@ -0,0 +1,19 @@
+package com.flamelab.shopserver.services;
+
+import com.flamelab.shopserver.dtos.transfer.TransferBestsellerDto;
+
+import java.util.List;
+
+public interface BestsellersService {
+
+    void registerPurchase(String shopId, String productId, String productName, int productAmount);
+
+    List<TransferBestsellerDto> getShopBestsellers(String shopId, int limit);
+
+    List<TransferBestsellerDto> getGlobalBestsellers(int limit);
+
+    void removeShop(String shopId);
+
+    void checkpointBestsellers();
+
+}
@@ -0,0 +1,7 @@
+package com.flamelab.shopserver.services;
+
+public interface EmailDispatchService {
+
+    void dispatchEmails();
+
+}
@@ -0,0 +1,18 @@
+package com.flamelab.shopserver.services;
+
+import com.flamelab.shopserver.entities.PurchaseOperation;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductRecommendationsService {
+
+    void registerPurchaseOperation(PurchaseOperation operation);
+
+    List<String> getRelatedProductIds(String productId, int limit);
+
+    void removeProducts(Collection<String> productIds);
+
+    void bootstrapRecommendations();
+
+}
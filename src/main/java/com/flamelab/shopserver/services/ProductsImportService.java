@@ -0,0 +1,13 @@
+package com.flamelab.shopserver.services;
+
+import com.flamelab.shopserver.dtos.transfer.TransferProductsImportDto;
+import com.flamelab.shopserver.entities.Shop;
+import com.flamelab.shopserver.enums.ExportFormat;
+
+import java.io.InputStream;
+
+public interface ProductsImportService {
+
+    TransferProductsImportDto importProductsFromTheStock(Shop shop, ExportFormat format, InputStream inputStream);
+
+}
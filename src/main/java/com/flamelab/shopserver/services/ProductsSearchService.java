@@ -0,0 +1,18 @@
+package com.flamelab.shopserver.services;
+
+import com.flamelab.shopserver.entities.Product;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductsSearchService {
+
+    void indexProduct(Product product);
+
+    void removeProducts(Collection<String> productIds);
+
+    List<String> searchProductIds(String text);
+
+    void rebuildSearchIndex();
+
+}
@@ -1,6 +1,7 @@
 package com.flamelab.shopserver.services;
 
 import com.flamelab.shopserver.dtos.create.CreateProductDto;
+import com.flamelab.shopserver.dtos.update.UpdateProductStockDto;
 import com.flamelab.shopserver.entities.Product;
 import com.flamelab.shopserver.enums.NumberActionType;
 
@@ -8,16 +9,22 @@ import java.util.List;
 
 public interface ProductsService {
 
-    Product createProduct(CreateProductDto createProductDto);
+    List<Product> createProducts(List<CreateProductDto> createProductDtos);
+
+    Product addProductFromTheStock(CreateProductDto createProductDto);
 
     Product getProductById(String productId);
 
     List<Product> getAllProducts();
 
+    List<Product> getAllProductsByIds(List<String> productIds);
+
     List<Product> searchAllProductsByText(String text);
 
     List<Product> getAllProductsByShopId(String shopId);
 
+    List<String> getAllProductNamesByShopId(String shopId);
+
     boolean isEnoughAmountOfProducts(String productId, int requestedAmount);
 
     Product setProductPrice(String productId, double newPrice);
@@ -26,6 +33,8 @@ public interface ProductsService {
 
     Product updateProductAmount(String productId, NumberActionType actionType, int newAmount);
 
+    List<Product> updateProductsInTheShop(String shopId, List<UpdateProductStockDto> updateProductStockDtos);
+
     void deleteProducts(List<String> productIds);
 
     void deleteProductsByShopIds(List<String> shopIds);
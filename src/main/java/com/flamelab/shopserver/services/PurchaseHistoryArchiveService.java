@@ -0,0 +1,20 @@
+package com.flamelab.shopserver.services;
+
+import com.flamelab.shopserver.entities.PurchaseOperation;
+
+import java.time.YearMonth;
+import java.util.stream.Stream;
+
+public interface PurchaseHistoryArchiveService {
+
+    void archivePartition(String partitionName, YearMonth month);
+
+    Stream<PurchaseOperation> streamArchivedPurchaseOperationsByCustomerId(String customerId);
+
+    Stream<PurchaseOperation> streamArchivedPurchaseOperationsByShopId(String shopId);
+
+    Stream<PurchaseOperation> streamArchivedPurchaseOperationsByProductName(String productName);
+
+    Stream<PurchaseOperation> streamAllArchivedPurchaseOperations();
+
+}
@@ -0,0 +1,14 @@
+package com.flamelab.shopserver.services;
+
+import com.flamelab.shopserver.enums.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface PurchaseHistoryExportService {
+
+    void exportPurchaseOperationsByUser(String userId, ExportFormat format, boolean gzip, OutputStream outputStream) throws IOException;
+
+    void exportPurchaseOperationsByShop(String shopId, ExportFormat format, boolean gzip, OutputStream outputStream) throws IOException;
+
+}
@@ -0,0 +1,9 @@
+package com.flamelab.shopserver.services;
+
+public interface PurchaseHistoryPartitionsService {
+
+    void preparePartitions();
+
+    void maintainPartitions();
+
+}
@@ -9,6 +9,8 @@ public interface PurchaseOperationsService {
 
     void createPurchaseOperation(CreatePurchaseOperationDto createPurchaseOperationDto);
 
+    void createPurchaseOperations(List<CreatePurchaseOperationDto> createPurchaseOperationDtos);
+
     PurchaseOperation getPurchaseOperationById(String operationId);
 
     List<PurchaseOperation> getAllPurchaseOperationsByUser(String userId);
@@ -0,0 +1,21 @@
+package com.flamelab.shopserver.services;
+
+import com.flamelab.shopserver.dtos.transfer.TransferSalesStatisticsDto;
+import com.flamelab.shopserver.entities.PurchaseOperation;
+import com.flamelab.shopserver.enums.SalesPeriod;
+
+import java.time.LocalDate;
+
+public interface SalesRollupsService {
+
+    void registerPurchaseOperation(PurchaseOperation operation);
+
+    TransferSalesStatisticsDto getShopSalesStatistics(String shopId, SalesPeriod period, LocalDate date);
+
+    TransferSalesStatisticsDto getShopProductSalesStatistics(String shopId, String productName, SalesPeriod period, LocalDate date);
+
+    void startSalesRollupsRebuild();
+
+    void rebuildSalesRollups();
+
+}
@@ -1,7 +1,10 @@
 package com.flamelab.shopserver.services;
 
 import com.flamelab.shopserver.dtos.create.CreateShopDto;
+import com.flamelab.shopserver.dtos.transfer.TransferShopDto;
 import com.flamelab.shopserver.entities.Shop;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 
@@ -15,10 +18,22 @@ public interface ShopsService {
 
     List<Shop> getAllShops();
 
+    List<TransferShopDto> getAllShopsWithWallets();
+
+    Page<TransferShopDto> getShopsWithWalletsPage(Pageable pageable);
+
+    List<TransferShopDto> getShopsWithWalletsAfterId(String afterId, Pageable pageable);
+
     List<Shop> getAllShopsByOwnerId(String ownerId);
 
+    List<String> getAllShopIdsByOwnerId(String ownerId);
+
+    List<TransferShopDto> getAllShopsWithWalletsByOwnerId(String ownerId);
+
     List<Shop> getAllShopsByTextInName(String text);
 
+    List<TransferShopDto> getAllShopsWithWalletsByTextInName(String text);
+
     Shop renameShop(String shopId, String newName);
 
     boolean isUserOwnerOfShop(String userId, String shopId);
@@ -1,15 +1,18 @@
 package com.flamelab.shopserver.services;
 
 import com.flamelab.shopserver.dtos.create.CreateUserDto;
+import com.flamelab.shopserver.dtos.transfer.TransferUserDto;
 import com.flamelab.shopserver.dtos.update.UpdateUserDto;
 import com.flamelab.shopserver.dtos.update.UpdateUserPasswordDto;
 import com.flamelab.shopserver.entities.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 
 public interface UsersService {
 
-    User createUser(CreateUserDto createUserDto);
+    User createUser(String userId, CreateUserDto createUserDto, String walletId);
 
     User activateUser(String userId);
 
@@ -19,11 +22,15 @@ public interface UsersService {
 
     List<User> getAllUsers();
 
-    List<User> getAllUsersByTextInParameters(String text);
+    List<TransferUserDto> getAllUsersWithWallets();
 
-    User updateUserData(String userId, UpdateUserDto updateUserDto);
+    Page<TransferUserDto> getUsersWithWalletsPage(Pageable pageable);
+
+    List<TransferUserDto> getUsersWithWalletsAfterId(String afterId, Pageable pageable);
 
-    User addWalletToUser(String userId, String walletId);
+    List<TransferUserDto> searchUsersWithWallets(String text);
+
+    User updateUserData(String userId, UpdateUserDto updateUserDto);
 
     void recoverPassword(String userId, String newPassword);
 
@@ -4,6 +4,8 @@ import com.flamelab.shopserver.dtos.create.CreateWalletDto;
 import com.flamelab.shopserver.entities.Wallet;
 import com.flamelab.shopserver.enums.NumberActionType;
 import com.flamelab.shopserver.enums.WalletOwnerTypes;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 
@@ -11,6 +13,8 @@ public interface WalletsService {
 
     Wallet createWallet(CreateWalletDto createWalletDto);
 
+    Wallet createWallet(String walletId, CreateWalletDto createWalletDto, WalletOwnerTypes ownerType, String ownerId, String ownerName);
+
     Wallet getWalletById(String walletId);
 
     Wallet getWalletByOwnerId(String ownerId);
@@ -19,6 +23,10 @@ public interface WalletsService {
 
     List<Wallet> getAllWallets();
 
+    Page<Wallet> getWalletsPage(Pageable pageable);
+
+    List<Wallet> getWalletsAfterId(String afterId, Pageable pageable);
+
     List<Wallet> getAllWalletsByShopsIds(List<String> shopIds);
 
     Wallet updateWalletAmount(String walletId, NumberActionType actionType, double amount);
@@ -27,5 +35,5 @@ public interface WalletsService {
 
     boolean isWalletHasEnoughAmountForPurchase(String walletId, double purchasePrice);
 
-    void deleteWallet(String walletId);
+    void deleteWalletsByOwnerIds(List<String> ownerIds);
 }
@@ -7,28 +7,87 @@ import com.flamelab.shopserver.exceptions.ResourceException;
 import com.flamelab.shopserver.mappers.AuthTokenMapper;
 import com.flamelab.shopserver.repositories.AuthorizationRepository;
 import com.flamelab.shopserver.services.AuthService;
+import com.flamelab.shopserver.utiles.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.flamelab.shopserver.enums.AuthTokenType.BEARER;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AuthServiceImpl implements AuthService {
 
     private final AuthorizationRepository authorizationRepository;
     private final AuthTokenMapper authTokenMapper;
-    private final int maxUsageAmount = 1000;
+    private final MeterRegistry meterRegistry;
+    private final AsyncCacheLoader asyncCacheLoader;
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLong liveTokensCount = new AtomicLong();
+    // every batch is a separate short statement on an indexed column, so the reaper never holds locks on a large set of rows
+    private final String DELETE_EXPIRED_TOKENS_BATCH = "DELETE FROM tokens WHERE id IN " +
+            "(SELECT id FROM tokens WHERE expires_date <= ? LIMIT ?)";
+    private final String DELETE_IDLE_TOKENS_BATCH = "DELETE FROM tokens WHERE id IN " +
+            "(SELECT id FROM tokens WHERE last_used_date <= ? LIMIT ?)";
+    private final String COUNT_TOKENS = "SELECT count(*) FROM tokens";
+
+    // tokens by token value, so a request is validated without reading the tokens table
+    private AsyncCache<String, AuthToken> tokensCache;
+
+    @Value("${shop.auth.tokens.idle-timeout:30m}")
+    private Duration idleTimeout;
+
+    @Value("${shop.auth.tokens.absolute-timeout:12h}")
+    private Duration absoluteTimeout;
+
+    @Value("${shop.auth.tokens.touch-interval:1m}")
+    private Duration touchInterval;
+
+    @Value("${shop.auth.tokens.cache.maximum-size:100000}")
+    private long tokensCacheMaximumSize;
+
+    @Value("${shop.auth.tokens.cache.expire-after-write:1m}")
+    private Duration tokensCacheExpireAfterWrite;
+
+    @Value("${shop.auth.tokens.reaper-batch-size:1000}")
+    private int reaperBatchSize;
+
+    @PostConstruct
+    public void createTokensCache() {
+        tokensCache = CaffeineCacheMetrics.monitor(meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(tokensCacheMaximumSize)
+                        .expireAfterWrite(tokensCacheExpireAfterWrite)
+                        .recordStats()
+                        .buildAsync(),
+                "auth.tokens");
+        meterRegistry.gauge("auth.tokens.live", liveTokensCount);
+    }
 
     @Override
     public AuthToken createToken(User user) {
-        return authorizationRepository.save(authTokenMapper.generateAuthToken(user));
+        AuthToken token = authorizationRepository.save(authTokenMapper.generateAuthToken(user, LocalDateTime.now().plus(absoluteTimeout)));
+        liveTokensCount.incrementAndGet();
+        return token;
     }
 
     @Override
@@ -37,12 +96,12 @@ public class AuthServiceImpl implements AuthService {
             throw new ResourceException(UNAUTHORIZED, "Unauthorized");
         } else {
             token = token.replace(BEARER.getTypeName() + " ", "");
-            Optional<AuthToken> optionalAuthToken = authorizationRepository.findByToken(token);
-            if (optionalAuthToken.isPresent()) {
-                AuthToken tokenFromDb = optionalAuthToken.get();
+            AuthToken tokenFromDb = asyncCacheLoader.get(tokensCache, token, key -> authorizationRepository.findByToken(key).orElse(null));
+            if (tokenFromDb != null) {
                 validateRoles(tokenFromDb, availableRoles.stream().map(Objects::toString).toList());
-                validateIsTokenExpire(tokenFromDb);
-                increaseTokenUsageAmount(tokenFromDb);
+                LocalDateTime now = LocalDateTime.now();
+                validateIsTokenExpire(tokenFromDb, now);
+                touchToken(tokenFromDb, now);
                 return tokenFromDb;
             } else {
                 throw new ResourceException(UNAUTHORIZED, "UNAUTHORIZED");
@@ -56,16 +115,29 @@ public class AuthServiceImpl implements AuthService {
         }
     }
 
-    private void validateIsTokenExpire(AuthToken token) {
-        if (token.getUsageAmount() >= maxUsageAmount) {
-            deleteTokenByTokenId(token.getId());
+    private void validateIsTokenExpire(AuthToken token, LocalDateTime now) {
+        if (isTokenExpired(token, now)) {
+            // the cached last usage may be behind the one written by another instance, so the token is read again before it is rejected
+            Optional<AuthToken> optionalActualToken = authorizationRepository.findByToken(token.getToken());
+            if (optionalActualToken.isPresent() && !isTokenExpired(optionalActualToken.get(), now)) {
+                tokensCache.synchronous().put(token.getToken(), optionalActualToken.get());
+                return;
+            }
+            deleteToken(token.getToken());
             throw new ResourceException(UNAUTHORIZED, "Token is expired");
         }
     }
 
-    private void increaseTokenUsageAmount(AuthToken token) {
-        token.setUsageAmount(token.getUsageAmount() + 1);
-        authorizationRepository.save(token);
+    private boolean isTokenExpired(AuthToken token, LocalDateTime now) {
+        return !now.isBefore(token.getExpiresDate()) || !now.isBefore(token.getLastUsedDate().plus(idleTimeout));
+    }
+
+    // the last usage is written at most once per touch interval, the idle timeout is longer than it by far
+    private void touchToken(AuthToken token, LocalDateTime now) {
+        if (!now.isBefore(token.getLastUsedDate().plus(touchInterval))) {
+            token.setLastUsedDate(now);
+            authorizationRepository.updateLastUsedDate(token.getId(), now);
+        }
     }
 
     @Override
@@ -84,8 +156,38 @@ public class AuthServiceImpl implements AuthService {
     }
 
     @Override
-    public void deleteTokenByTokenId(String tokenId) {
-        authorizationRepository.deleteById(tokenId);
+    public void deleteToken(String token) {
+        tokensCache.synchronous().invalidate(token);
+        liveTokensCount.addAndGet(-authorizationRepository.deleteByToken(token));
+    }
+
+    // the first run is at startup, so the live tokens gauge is filled right away;
+    // the last usage in the table can be behind by up to the touch interval, so idle tokens are deleted only after both
+    @Scheduled(fixedDelayString = "${shop.auth.tokens.reaper-interval:60000}")
+    public void deleteExpiredTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = deleteInBatches(DELETE_EXPIRED_TOKENS_BATCH, now)
+                + deleteInBatches(DELETE_IDLE_TOKENS_BATCH, now.minus(idleTimeout).minus(touchInterval));
+        if (deleted > 0) {
+            log.info("Deleted {} expired auth tokens", deleted);
+        }
+        liveTokensCount.set(countTokens());
+    }
+
+    private int deleteInBatches(String deleteBatchQuery, LocalDateTime expiredBefore) {
+        Timestamp timestamp = Timestamp.valueOf(expiredBefore);
+        int deleted = 0;
+        int batch;
+        do {
+            batch = jdbcTemplate.update(deleteBatchQuery, timestamp, reaperBatchSize);
+            deleted += batch;
+        } while (batch == reaperBatchSize);
+        return deleted;
+    }
+
+    private long countTokens() {
+        Long count = jdbcTemplate.queryForObject(COUNT_TOKENS, Long.class);
+        return count == null ? 0 : count;
     }
 
 }
@@ -0,0 +1,136 @@
+package com.flamelab.shopserver.services.impl;
+
+import com.flamelab.shopserver.dtos.transfer.TransferAutocompleteDto;
+import com.flamelab.shopserver.entities.Product;
+import com.flamelab.shopserver.entities.Shop;
+import com.flamelab.shopserver.enums.AutocompleteEntryType;
+import com.flamelab.shopserver.exceptions.ResourceException;
+import com.flamelab.shopserver.repositories.ProductsRepository;
+import com.flamelab.shopserver.repositories.ShopsRepository;
+import com.flamelab.shopserver.services.AutocompleteService;
+import com.flamelab.shopserver.utiles.structures.AutocompleteTrie;
+import com.flamelab.shopserver.utiles.structures.InvertedIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static com.flamelab.shopserver.enums.AutocompleteEntryType.PRODUCT;
+import static com.flamelab.shopserver.enums.AutocompleteEntryType.SHOP;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+@Service
+@RequiredArgsConstructor
+public class AutocompleteServiceImpl implements AutocompleteService {
+
+    private final ShopsRepository shopsRepository;
+    private final ProductsRepository productsRepository;
+
+    private final Map<String, String> shopNames = new ConcurrentHashMap<>();
+    private final Map<String, String> productNames = new ConcurrentHashMap<>();
+    private volatile AutocompleteTrie<TransferAutocompleteDto> autocompleteTrie = AutocompleteTrie.empty();
+    // changes only mark the trie as stale, a burst of them is folded into one rebuild
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean(false);
+
+    @Value("${shop.autocomplete.top-size:10}")
+    private int topSize;
+
+    @Override
+    public void registerShop(Shop shop) {
+        shopNames.put(shop.getId(), shop.getName());
+        scheduleRebuild();
+    }
+
+    @Override
+    public void removeShops(Collection<String> shopIds) {
+        shopIds.forEach(shopNames::remove);
+        scheduleRebuild();
+    }
+
+    @Override
+    public void registerProduct(Product product) {
+        productNames.put(product.getId(), product.getName());
+        scheduleRebuild();
+    }
+
+    @Override
+    public void registerProducts(List<Product> products) {
+        products.forEach(product -> productNames.put(product.getId(), product.getName()));
+        scheduleRebuild();
+    }
+
+    @Override
+    public void removeProducts(Collection<String> productIds) {
+        productIds.forEach(productNames::remove);
+        scheduleRebuild();
+    }
+
+    @Override
+    public List<TransferAutocompleteDto> getCompletions(String prefix, int limit) {
+        if (limit <= 0) {
+            throw new ResourceException(BAD_REQUEST, String.format("Limit of completions should be positive, but was %s", limit));
+        }
+        return autocompleteTrie.getCompletions(InvertedIndex.normalize(prefix), Math.min(limit, topSize));
+    }
+
+    @Override
+    @PostConstruct
+    public void rebuildAutocomplete() {
+        shopsRepository.findAll().forEach(shop -> shopNames.put(shop.getId(), shop.getName()));
+        productsRepository.findAll().forEach(product -> productNames.put(product.getId(), product.getName()));
+        autocompleteTrie = buildTrie();
+    }
+
+    @PreDestroy
+    public void stopRebuilds() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildScheduled.set(false);
+                autocompleteTrie = buildTrie();
+            });
+        }
+    }
+
+    private AutocompleteTrie<TransferAutocompleteDto> buildTrie() {
+        List<Map.Entry<String, TransferAutocompleteDto>> keyedCompletions = new ArrayList<>();
+        addCompletions(keyedCompletions, shopNames.values(), SHOP);
+        addCompletions(keyedCompletions, productNames.values(), PRODUCT);
+        return AutocompleteTrie.build(keyedCompletions,
+                Comparator.comparingInt(TransferAutocompleteDto::getMatchesCount).reversed()
+                        .thenComparingInt(completion -> completion.getName().length())
+                        .thenComparing(TransferAutocompleteDto::getName)
+                        .thenComparing(TransferAutocompleteDto::getType),
+                topSize);
+    }
+
+    // every name is reachable by its beginning and by the beginning of each of its words,
+    // the same names are folded into one completion with the count of shops or products having it
+    private void addCompletions(List<Map.Entry<String, TransferAutocompleteDto>> keyedCompletions, Collection<String> names, AutocompleteEntryType type) {
+        Map<String, Long> namesCounts = names.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(name -> name, Collectors.counting()));
+        namesCounts.forEach((name, count) -> {
+            TransferAutocompleteDto completion = new TransferAutocompleteDto(name, type, count.intValue());
+            String key = InvertedIndex.normalize(name);
+            for (int i = 0; i < key.length(); i++) {
+                if (i == 0 || (!Character.isLetterOrDigit(key.charAt(i - 1)) && Character.isLetterOrDigit(key.charAt(i)))) {
+                    keyedCompletions.add(Map.entry(key.substring(i), completion));
+                }
+            }
+        });
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.flamelab.shopserver.services.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flamelab.shopserver.dtos.transfer.TransferBestsellerDto;
+import com.flamelab.shopserver.exceptions.ResourceException;
+import com.flamelab.shopserver.services.BestsellersService;
+import com.flamelab.shopserver.utiles.structures.SlidingWindowSketch;
+import com.flamelab.shopserver.utiles.structures.SpaceSavingSketch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BestsellersServiceImpl implements BestsellersService {
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, SlidingWindowSketch> shopSketches = new ConcurrentHashMap<>();
+    private final Map<String, ProductLabel> productLabels = new ConcurrentHashMap<>();
+    private SlidingWindowSketch globalSketch;
+
+    @Value("${shop.bestsellers.window-minutes:60}")
+    private long windowMinutes;
+
+    @Value("${shop.bestsellers.buckets-count:12}")
+    private int bucketsCount;
+
+    @Value("${shop.bestsellers.capacity:100}")
+    private int capacity;
+
+    @Value("${shop.bestsellers.checkpoint-file:./data/bestsellers.json}")
+    private Path checkpointFile;
+
+    @PostConstruct
+    public void loadCheckpoint() {
+        globalSketch = createSketch();
+        if (!Files.exists(checkpointFile)) {
+            return;
+        }
+        try {
+            BestsellersCheckpoint checkpoint = objectMapper.readValue(checkpointFile.toFile(), BestsellersCheckpoint.class);
+            if (checkpoint.getBucketMillis() != getBucketMillis()) {
+                log.info("Bestsellers checkpoint '{}' was made with other window settings and is skipped", checkpointFile);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            globalSketch.restore(checkpoint.getGlobalBuckets(), now);
+            checkpoint.getShopsBuckets().forEach((shopId, buckets) -> {
+                SlidingWindowSketch sketch = createSketch();
+                sketch.restore(buckets, now);
+                shopSketches.put(shopId, sketch);
+            });
+            productLabels.putAll(checkpoint.getProductLabels());
+        } catch (IOException e) {
+            log.warn("Bestsellers checkpoint '{}' can not be read", checkpointFile, e);
+        }
+    }
+
+    @Override
+    public void registerPurchase(String shopId, String productId, String productName, int productAmount) {
+        long now = System.currentTimeMillis();
+        // the sketch is updated inside compute, so a checkpoint can not drop it as empty in the meantime
+        shopSketches.compute(shopId, (id, sketch) -> {
+            SlidingWindowSketch shopSketch = sketch == null ? createSketch() : sketch;
+            shopSketch.add(productId, productAmount, now);
+            return shopSketch;
+        });
+        globalSketch.add(productId, productAmount, now);
+        // the label goes after the sketches, so a checkpoint that finds the product untracked can only drop an older label
+        productLabels.put(productId, new ProductLabel(shopId, productName));
+    }
+
+    @Override
+    public List<TransferBestsellerDto> getShopBestsellers(String shopId, int limit) {
+        verifyLimit(limit);
+        SlidingWindowSketch sketch = shopSketches.get(shopId);
+        if (sketch == null) {
+            return Collections.emptyList();
+        }
+        return mapToDtoList(sketch.getTop(limit, System.currentTimeMillis()));
+    }
+
+    @Override
+    public List<TransferBestsellerDto> getGlobalBestsellers(int limit) {
+        verifyLimit(limit);
+        return mapToDtoList(globalSketch.getTop(limit, System.currentTimeMillis()));
+    }
+
+    @Override
+    public void removeShop(String shopId) {
+        shopSketches.remove(shopId);
+    }
+
+    @Override
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${shop.bestsellers.checkpoint-interval:60000}", initialDelayString = "${shop.bestsellers.checkpoint-interval:60000}")
+    public void checkpointBestsellers() {
+        shopSketches.keySet().forEach(shopId -> shopSketches.computeIfPresent(shopId,
+                (id, sketch) -> sketch.isEmpty(System.currentTimeMillis()) ? null : sketch));
+        // removeIf removes an entry only if it still holds the tested label, a label stored meanwhile stays
+        productLabels.entrySet().removeIf(entry -> !isTracked(entry.getKey(), entry.getValue().getShopId()));
+        long now = System.currentTimeMillis();
+        Map<String, List<SlidingWindowSketch.Bucket>> shopsBuckets = new HashMap<>();
+        shopSketches.forEach((shopId, sketch) -> shopsBuckets.put(shopId, sketch.getBuckets(now)));
+        List<SlidingWindowSketch.Bucket> globalBuckets = globalSketch.getBuckets(now);
+        try {
+            Files.createDirectories(checkpointFile.toAbsolutePath().getParent());
+            Path temporaryFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+            objectMapper.writeValue(temporaryFile.toFile(),
+                    new BestsellersCheckpoint(getBucketMillis(), globalBuckets, shopsBuckets, new HashMap<>(productLabels)));
+            Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Bestsellers checkpoint '{}' can not be written", checkpointFile, e);
+        }
+    }
+
+    private boolean isTracked(String productId, String shopId) {
+        long now = System.currentTimeMillis();
+        SlidingWindowSketch shopSketch = shopSketches.get(shopId);
+        return globalSketch.contains(productId, now) || shopSketch != null && shopSketch.contains(productId, now);
+    }
+
+    private List<TransferBestsellerDto> mapToDtoList(List<SpaceSavingSketch.Counter> counters) {
+        return counters.stream()
+                .map(counter -> {
+                    ProductLabel label = productLabels.get(counter.getItem());
+                    return new TransferBestsellerDto(counter.getItem(),
+                            label == null ? null : label.getProductName(),
+                            label == null ? null : label.getShopId(),
+                            counter.getCount(), counter.getError());
+                })
+                .toList();
+    }
+
+    private void verifyLimit(int limit) {
+        if (limit <= 0 || limit > capacity) {
+            throw new ResourceException(BAD_REQUEST, String.format("Limit of bestsellers should be between 1 and %s", capacity));
+        }
+    }
+
+    private SlidingWindowSketch createSketch() {
+        return new SlidingWindowSketch(bucketsCount, getBucketMillis(), capacity);
+    }
+
+    private long getBucketMillis() {
+        return TimeUnit.MINUTES.toMillis(windowMinutes) / bucketsCount;
+    }
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    private static class ProductLabel {
+
+        private String shopId;
+        private String productName;
+
+    }
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    private static class BestsellersCheckpoint {
+
+        private long bucketMillis;
+        private List<SlidingWindowSketch.Bucket> globalBuckets;
+        private Map<String, List<SlidingWindowSketch.Bucket>> shopsBuckets;
+        private Map<String, ProductLabel> productLabels;
+
+    }
+
+}
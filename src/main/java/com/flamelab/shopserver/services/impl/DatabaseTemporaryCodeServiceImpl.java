@@ -0,0 +1,62 @@
+package com.flamelab.shopserver.services.impl;
+
+import com.flamelab.shopserver.dtos.create.CreateTemporaryCodeDto;
+import com.flamelab.shopserver.mappers.TemporaryCodeMapper;
+import com.flamelab.shopserver.repositories.TemporaryCodeRepository;
+import com.flamelab.shopserver.services.TemporaryCodeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shop.temporary-codes.store", havingValue = "database")
+public class DatabaseTemporaryCodeServiceImpl implements TemporaryCodeService {
+
+    private final TemporaryCodeRepository temporaryCodeRepository;
+    private final TemporaryCodeMapper temporaryCodeMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final String DELETE_EXPIRED_CODES_BATCH = "DELETE FROM temp_codes WHERE id IN " +
+            "(SELECT id FROM temp_codes WHERE expires_date <= ? LIMIT ?)";
+
+    @Value("${shop.temporary-codes.ttl:15m}")
+    private Duration ttl;
+
+    @Value("${shop.temporary-codes.reaper-batch-size:1000}")
+    private int reaperBatchSize;
+
+    @Override
+    public int generateTemporaryCode(CreateTemporaryCodeDto createTemporaryCodeDto) {
+        return temporaryCodeRepository.save(temporaryCodeMapper.mapToEntity(createTemporaryCodeDto, LocalDateTime.now().plus(ttl))).getTempCode();
+    }
+
+    @Override
+    public boolean consumeTemporaryCode(String email, int tempCode) {
+        return temporaryCodeRepository.deleteValidTemporaryCode(email, tempCode, LocalDateTime.now()) > 0;
+    }
+
+    // expired codes are already rejected by consumeTemporaryCode, the reaper only keeps the table small
+    @Scheduled(fixedDelayString = "${shop.temporary-codes.reaper-interval:60000}", initialDelayString = "${shop.temporary-codes.reaper-interval:60000}")
+    public void deleteExpiredTemporaryCodes() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int deleted = 0;
+        int batch;
+        do {
+            batch = jdbcTemplate.update(DELETE_EXPIRED_CODES_BATCH, now, reaperBatchSize);
+            deleted += batch;
+        } while (batch == reaperBatchSize);
+        if (deleted > 0) {
+            log.info("Deleted {} expired temporary codes", deleted);
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.flamelab.shopserver.services.impl;
+
+import com.flamelab.shopserver.entities.Product;
+import com.flamelab.shopserver.entities.Shop;
+import com.flamelab.shopserver.services.DeletedEntitiesPurgeService;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shop.deletion.async-purge", havingValue = "true")
+public class DeletedEntitiesPurgeServiceImpl implements DeletedEntitiesPurgeService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    // every batch is a separate short statement, so the purge never holds locks on a large set of rows
+    private final String PURGE_PRODUCTS_BATCH = "DELETE FROM products WHERE id IN " +
+            "(SELECT id FROM products WHERE deleted_date IS NOT NULL LIMIT ?)";
+    // a shop is purged only after all of its products are gone
+    private final String PURGE_SHOPS_BATCH = "DELETE FROM shops WHERE id IN " +
+            "(SELECT s.id FROM shops s WHERE s.deleted_date IS NOT NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM products p WHERE p.owner_shop_id = s.id) LIMIT ?)";
+
+    @Value("${shop.deletion.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    @Override
+    @Scheduled(fixedDelayString = "${shop.deletion.purge-interval:60000}", initialDelayString = "${shop.deletion.purge-interval:60000}")
+    public void purgeDeletedEntities() {
+        int purgedProducts = purgeInBatches(PURGE_PRODUCTS_BATCH);
+        int purgedShops = purgeInBatches(PURGE_SHOPS_BATCH);
+        if (purgedProducts > 0 || purgedShops > 0) {
+            // the rows are deleted with JDBC, so entries Hibernate may still hold for them are dropped from the second-level cache
+            entityManagerFactory.getCache().evict(Product.class);
+            entityManagerFactory.getCache().evict(Shop.class);
+            log.info("Purged {} deleted products and {} deleted shops", purgedProducts, purgedShops);
+        }
+    }
+
+    private int purgeInBatches(String purgeBatchQuery) {
+        int purged = 0;
+        int batch;
+        do {
+            batch = jdbcTemplate.update(purgeBatchQuery, purgeBatchSize);
+            purged += batch;
+        } while (batch == purgeBatchSize);
+        return purged;
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.flamelab.shopserver.services.impl;
+
+import com.flamelab.shopserver.entities.EmailOutboxMessage;
+import com.flamelab.shopserver.repositories.EmailOutboxRepository;
+import com.flamelab.shopserver.services.EmailDispatchService;
+import com.flamelab.shopserver.utiles.structures.TokenBucket;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static com.flamelab.shopserver.enums.EmailStatus.FAILED;
+import static com.flamelab.shopserver.enums.EmailStatus.PENDING;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shop.email.dispatch.enabled", havingValue = "true")
+public class EmailDispatchServiceImpl implements EmailDispatchService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender javaMailSender;
+    private TokenBucket rateLimiter;
+
+    @Value("${shop.email.sender:no-reply@shop.ua}")
+    private String sender;
+
+    @Value("${shop.email.dispatch.batch-size:50}")
+    private int batchSize;
+
+    @Value("${shop.email.dispatch.rate-per-second:10}")
+    private double ratePerSecond;
+
+    @Value("${shop.email.dispatch.lease:5m}")
+    private Duration lease;
+
+    @Value("${shop.email.dispatch.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${shop.email.dispatch.initial-backoff:30s}")
+    private Duration initialBackoff;
+
+    @Value("${shop.email.dispatch.max-backoff:6h}")
+    private Duration maxBackoff;
+
+    @PostConstruct
+    public void createRateLimiter() {
+        rateLimiter = new TokenBucket(Math.max(batchSize, ratePerSecond), ratePerSecond);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${shop.email.dispatch.interval:1000}")
+    public void dispatchEmails() {
+        int permits;
+        while ((permits = rateLimiter.available(batchSize)) > 0) {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutboxMessage> messages = emailOutboxRepository.claimPendingMessages(now, now.plus(lease), permits);
+            rateLimiter.consume(messages.size());
+            if (!messages.isEmpty()) {
+                sendBatch(messages);
+            }
+            if (messages.size() < permits) {
+                return;
+            }
+        }
+    }
+
+    // the whole batch goes through one send call, so it is delivered over one SMTP connection
+    private void sendBatch(List<EmailOutboxMessage> messages) {
+        Map<MimeMessage, EmailOutboxMessage> outboxMessagesByMime = new IdentityHashMap<>();
+        Map<EmailOutboxMessage, String> errors = new IdentityHashMap<>();
+        for (EmailOutboxMessage message : messages) {
+            try {
+                outboxMessagesByMime.put(createMimeMessage(message), message);
+            } catch (MessagingException e) {
+                errors.put(message, e.getMessage());
+            }
+        }
+        try {
+            javaMailSender.send(outboxMessagesByMime.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            e.getFailedMessages().forEach((mimeMessage, exception) -> {
+                EmailOutboxMessage message = outboxMessagesByMime.get(mimeMessage);
+                if (message != null) {
+                    errors.put(message, exception.getMessage());
+                }
+            });
+            if (e.getFailedMessages().isEmpty()) {
+                outboxMessagesByMime.values().forEach(message -> errors.put(message, e.getMessage()));
+            }
+        } catch (MailException e) {
+            outboxMessagesByMime.values().forEach(message -> errors.put(message, e.getMessage()));
+        }
+        List<String> sentIds = messages.stream()
+                .filter(message -> !errors.containsKey(message))
+                .map(EmailOutboxMessage::getId)
+                .toList();
+        if (!sentIds.isEmpty()) {
+            emailOutboxRepository.deleteAllByIdIn(sentIds);
+        }
+        errors.forEach(this::registerFailedAttempt);
+    }
+
+    private MimeMessage createMimeMessage(EmailOutboxMessage message) throws MessagingException {
+        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage);
+        helper.setFrom(new InternetAddress(sender));
+        helper.setTo(message.getReceiverEmail());
+        helper.setSubject(message.getSubject());
+        helper.setText(message.getText(), true);
+        return mimeMessage;
+    }
+
+    // exponential backoff from initialBackoff up to maxBackoff, after maxAttempts the message stays FAILED for inspection
+    private void registerFailedAttempt(EmailOutboxMessage message, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean isLastAttempt = message.getAttempts() >= maxAttempts;
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(message.getAttempts() - 1, 20));
+        emailOutboxRepository.updateAfterFailedAttempt(message.getId(),
+                isLastAttempt ? FAILED.name() : PENDING.name(),
+                now.plus(backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff),
+                error, now);
+        if (isLastAttempt) {
+            log.warn("Email to {} failed after {} attempts: {}", message.getReceiverEmail(), message.getAttempts(), error);
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.flamelab.shopserver.services.impl;
+
+import com.flamelab.shopserver.dtos.create.CreateTemporaryCodeDto;
+import com.flamelab.shopserver.services.TemporaryCodeService;
+import com.flamelab.shopserver.utiles.structures.HierarchicalTimingWheel;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// codes live only in this instance, so it fits a single node; several nodes should use the database store
+@Service
+@ConditionalOnProperty(name = "shop.temporary-codes.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryTemporaryCodeServiceImpl implements TemporaryCodeService {
+
+    private final Map<CodeKey, Long> expirationsByCode = new ConcurrentHashMap<>();
+    private HierarchicalTimingWheel<Map.Entry<CodeKey, Long>> expirationWheel;
+
+    @Value("${shop.temporary-codes.ttl:15m}")
+    private Duration ttl;
+
+    @Value("${shop.temporary-codes.wheel.tick:1000}")
+    private long wheelTickMillis;
+
+    @Value("${shop.temporary-codes.wheel.size:64}")
+    private int wheelSize;
+
+    @Value("${shop.temporary-codes.wheel.levels:3}")
+    private int wheelLevels;
+
+    @PostConstruct
+    public void createExpirationWheel() {
+        expirationWheel = new HierarchicalTimingWheel<>(wheelTickMillis, wheelSize, wheelLevels, System.currentTimeMillis());
+    }
+
+    @Override
+    public int generateTemporaryCode(CreateTemporaryCodeDto createTemporaryCodeDto) {
+        CodeKey key = new CodeKey(createTemporaryCodeDto.getEmail(), createTemporaryCodeDto.getTempCode());
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        expirationsByCode.put(key, expiresAt);
+        expirationWheel.schedule(Map.entry(key, expiresAt), expiresAt);
+        return createTemporaryCodeDto.getTempCode();
+    }
+
+    @Override
+    public boolean consumeTemporaryCode(String email, int tempCode) {
+        Long expiresAt = expirationsByCode.remove(new CodeKey(email, tempCode));
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    // the same code issued again for the same email has a later expiration, so only the expired issue is removed
+    @Scheduled(fixedRateString = "${shop.temporary-codes.wheel.tick:1000}")
+    public void removeExpiredTemporaryCodes() {
+        expirationWheel.advance(System.currentTimeMillis(), expired -> expirationsByCode.remove(expired.getKey(), expired.getValue()));
+    }
+
+    private record CodeKey(String email, int tempCode) {
+    }
+
+}
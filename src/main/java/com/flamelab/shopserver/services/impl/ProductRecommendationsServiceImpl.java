@@ -0,0 +1,293 @@
+package com.flamelab.shopserver.services.impl;
+
+import com.flamelab.shopserver.entities.PurchaseOperation;
+import com.flamelab.shopserver.exceptions.ResourceException;
+import com.flamelab.shopserver.repositories.PurchaseOperationsRepository;
+import com.flamelab.shopserver.services.ProductRecommendationsService;
+import com.flamelab.shopserver.utiles.structures.IntIntHashMap;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.flamelab.shopserver.entities.PurchaseOperation.STOCK_MERCHANT_ID;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+@Slf4j
+@Service
+public class ProductRecommendationsServiceImpl implements ProductRecommendationsService {
+
+    private final PurchaseOperationsRepository purchaseOperationsRepository;
+
+    // product ids are replaced by dense int indexes, so the co-occurrence rows are primitive maps
+    private final Map<String, Integer> productIndexes = new ConcurrentHashMap<>();
+    private final List<String> productIds = new ArrayList<>();
+    // a removed product keeps its index with no row, so the recent purchases that still hold it pair nothing with it
+    private volatile ProductRow[] productRows = new ProductRow[1024];
+    // customers who bought nothing for long are evicted first, their next purchase starts a new sequence
+    private final Cache<String, RecentPurchases> recentPurchases;
+
+    @Value("${shop.recommendations.recent-purchases:20}")
+    private int recentPurchasesSize;
+
+    @Value("${shop.recommendations.neighbours:20}")
+    private int neighboursSize;
+
+    @Value("${shop.recommendations.bootstrap-chunk-size:1000}")
+    private int bootstrapChunkSize;
+
+    @Value("${shop.recommendations.bootstrap-threads:4}")
+    private int bootstrapThreads;
+
+    public ProductRecommendationsServiceImpl(PurchaseOperationsRepository purchaseOperationsRepository,
+                                             @Value("${shop.recommendations.recent-customers:100000}") long recentCustomers) {
+        this.purchaseOperationsRepository = purchaseOperationsRepository;
+        this.recentPurchases = Caffeine.newBuilder()
+                .maximumSize(recentCustomers)
+                .build();
+    }
+
+    @Override
+    public void registerPurchaseOperation(PurchaseOperation operation) {
+        if (operation.getProductId() == null || STOCK_MERCHANT_ID.equals(operation.getMerchantId())) {
+            return;
+        }
+        int product = getProductIndex(operation.getProductId());
+        int[] previousProducts = recentPurchases
+                .get(operation.getCustomerId(), customerId -> new RecentPurchases(recentPurchasesSize))
+                .add(product);
+        ProductRow productRow = getProductRow(product);
+        for (int previousProduct : previousProducts) {
+            ProductRow previousProductRow = getProductRow(previousProduct);
+            if (productRow != null && previousProductRow != null) {
+                productRow.addCoPurchases(previousProduct, 1);
+                previousProductRow.addCoPurchases(product, 1);
+            }
+        }
+    }
+
+    @Override
+    public List<String> getRelatedProductIds(String productId, int limit) {
+        if (limit <= 0) {
+            throw new ResourceException(BAD_REQUEST, String.format("Limit of related products should be positive, but was %s", limit));
+        }
+        Integer product = productIndexes.get(productId);
+        if (product == null) {
+            return Collections.emptyList();
+        }
+        ProductRow productRow = getProductRow(product);
+        if (productRow == null) {
+            return Collections.emptyList();
+        }
+        int[] neighbours = productRow.neighbours;
+        List<String> result = new ArrayList<>(Math.min(limit, neighbours.length));
+        synchronized (productIds) {
+            for (int i = 0; i < neighbours.length && result.size() < limit; i++) {
+                String neighbourId = productIds.get(neighbours[i]);
+                if (neighbourId != null) {
+                    result.add(neighbourId);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void removeProducts(Collection<String> removedProductIds) {
+        for (String productId : removedProductIds) {
+            Integer product = productIndexes.remove(productId);
+            if (product == null) {
+                continue;
+            }
+            ProductRow productRow;
+            synchronized (productIds) {
+                productRow = productRows[product];
+                productRows[product] = null;
+                productIds.set(product, null);
+            }
+            // co-purchases are counted both ways, so the rows that count the removed product are the ones it counts
+            for (int otherProduct : productRow.getCoPurchasedProducts()) {
+                ProductRow otherProductRow = getProductRow(otherProduct);
+                if (otherProductRow != null) {
+                    otherProductRow.removeCoPurchases(product);
+                }
+            }
+        }
+    }
+
+    // only the live purchase_history is read: months moved to the archive are deliberately left out, so the index
+    // starts from the purchases of the last shop.purchase-history.archive.after-months months
+    @Override
+    @PostConstruct
+    public void bootstrapRecommendations() {
+        List<String> customerIds = purchaseOperationsRepository.findAllCustomerIdsWithPurchasedProducts(STOCK_MERCHANT_ID);
+        ExecutorService executor = Executors.newFixedThreadPool(bootstrapThreads);
+        try {
+            List<CompletableFuture<PartialIndex>> chunks = new ArrayList<>();
+            for (int from = 0; from < customerIds.size(); from += bootstrapChunkSize) {
+                List<String> chunk = customerIds.subList(from, Math.min(from + bootstrapChunkSize, customerIds.size()));
+                chunks.add(CompletableFuture.supplyAsync(() -> buildPartialIndex(chunk), executor));
+            }
+            for (CompletableFuture<PartialIndex> chunk : chunks) {
+                PartialIndex partialIndex = chunk.join();
+                partialIndex.coPurchases.forEach((product, row) ->
+                        row.forEach((otherProduct, count) -> getProductRow(product).addCoPurchases(otherProduct, count)));
+                recentPurchases.putAll(partialIndex.recentPurchases);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        log.info("Recommendations index is built from purchases of {} customers over {} products", customerIds.size(), productIndexes.size());
+    }
+
+    private PartialIndex buildPartialIndex(List<String> customerIds) {
+        PartialIndex partialIndex = new PartialIndex();
+        for (PurchaseOperation operation : purchaseOperationsRepository.findAllByCustomerIdInOrderByCreatedDate(customerIds)) {
+            if (operation.getProductId() == null || STOCK_MERCHANT_ID.equals(operation.getMerchantId())) {
+                continue;
+            }
+            int product = getProductIndex(operation.getProductId());
+            int[] previousProducts = partialIndex.recentPurchases
+                    .computeIfAbsent(operation.getCustomerId(), customerId -> new RecentPurchases(recentPurchasesSize))
+                    .add(product);
+            for (int previousProduct : previousProducts) {
+                partialIndex.coPurchases.computeIfAbsent(product, key -> new IntIntHashMap()).addTo(previousProduct, 1);
+                partialIndex.coPurchases.computeIfAbsent(previousProduct, key -> new IntIntHashMap()).addTo(product, 1);
+            }
+        }
+        return partialIndex;
+    }
+
+    private int getProductIndex(String productId) {
+        return productIndexes.computeIfAbsent(productId, id -> {
+            synchronized (productIds) {
+                int index = productIds.size();
+                if (index == productRows.length) {
+                    productRows = Arrays.copyOf(productRows, productRows.length * 2);
+                }
+                productRows[index] = new ProductRow();
+                productIds.add(id);
+                return index;
+            }
+        });
+    }
+
+    private ProductRow getProductRow(int product) {
+        return productRows[product];
+    }
+
+    private class ProductRow {
+
+        private final IntIntHashMap coPurchases = new IntIntHashMap();
+        // top neighbours ordered by co-purchases, replaced as a whole so readers need no lock
+        private volatile int[] neighbours = new int[0];
+        private int[] neighbourCounts = new int[0];
+
+        private synchronized int[] getCoPurchasedProducts() {
+            int[] products = new int[coPurchases.size()];
+            int[] position = new int[1];
+            coPurchases.forEach((product, count) -> products[position[0]++] = product);
+            return products;
+        }
+
+        private synchronized void removeCoPurchases(int otherProduct) {
+            coPurchases.remove(otherProduct);
+            for (int neighbour : neighbours) {
+                if (neighbour == otherProduct) {
+                    rebuildNeighbours();
+                    return;
+                }
+            }
+        }
+
+        // the product that leaves the top is replaced by the next one from the full co-purchase counts
+        private void rebuildNeighbours() {
+            List<int[]> candidates = new ArrayList<>(coPurchases.size());
+            coPurchases.forEach((product, count) -> candidates.add(new int[]{product, count}));
+            candidates.sort((left, right) -> Integer.compare(right[1], left[1]));
+            int size = Math.min(neighboursSize, candidates.size());
+            int[] ids = new int[size];
+            int[] counts = new int[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = candidates.get(i)[0];
+                counts[i] = candidates.get(i)[1];
+            }
+            neighbourCounts = counts;
+            neighbours = ids;
+        }
+
+        private synchronized void addCoPurchases(int otherProduct, int delta) {
+            int count = coPurchases.addTo(otherProduct, delta);
+            int[] ids = neighbours;
+            int position = -1;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == otherProduct) {
+                    position = i;
+                    break;
+                }
+            }
+            if (position < 0) {
+                if (ids.length < neighboursSize) {
+                    position = ids.length;
+                    ids = Arrays.copyOf(ids, ids.length + 1);
+                    neighbourCounts = Arrays.copyOf(neighbourCounts, neighbourCounts.length + 1);
+                } else if (count > neighbourCounts[ids.length - 1]) {
+                    position = ids.length - 1;
+                    ids = ids.clone();
+                } else {
+                    return;
+                }
+            } else {
+                ids = ids.clone();
+            }
+            while (position > 0 && neighbourCounts[position - 1] < count) {
+                ids[position] = ids[position - 1];
+                neighbourCounts[position] = neighbourCounts[position - 1];
+                position--;
+            }
+            ids[position] = otherProduct;
+            neighbourCounts[position] = count;
+            neighbours = ids;
+        }
+
+    }
+
+    private static class RecentPurchases {
+
+        private final int[] products;
+        private int size;
+        private int next;
+
+        private RecentPurchases(int capacity) {
+            this.products = new int[capacity];
+        }
+
+        // returns the products bought before, or nothing when the product is already among the recent ones
+        private synchronized int[] add(int product) {
+            for (int i = 0; i < size; i++) {
+                if (products[i] == product) {
+                    return new int[0];
+                }
+            }
+            int[] previousProducts = Arrays.copyOf(products, size);
+            products[next] = product;
+            next = (next + 1) % products.length;
+            size = Math.min(size + 1, products.length);
+            return previousProducts;
+        }
+
+    }
+
+    private static class PartialIndex {
+
+        private final Map<Integer, IntIntHashMap> coPurchases = new HashMap<>();
+        private final Map<String, RecentPurchases> recentPurchases = new HashMap<>();
+
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.flamelab.shopserver.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flamelab.shopserver.dtos.create.CreateProductDto;
+import com.flamelab.shopserver.dtos.create.CreatePurchaseOperationDto;
+import com.flamelab.shopserver.dtos.transfer.TransferImportErrorDto;
+import com.flamelab.shopserver.dtos.transfer.TransferProductsImportDto;
+import com.flamelab.shopserver.entities.Product;
+import com.flamelab.shopserver.entities.Shop;
+import com.flamelab.shopserver.entities.Wallet;
+import com.flamelab.shopserver.enums.ExportFormat;
+import com.flamelab.shopserver.exceptions.ResourceException;
+import com.flamelab.shopserver.services.ProductsImportService;
+import com.flamelab.shopserver.services.ProductsService;
+import com.flamelab.shopserver.services.PurchaseOperationsService;
+import com.flamelab.shopserver.services.WalletsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.*;
+
+import static com.flamelab.shopserver.entities.PurchaseOperation.STOCK_MERCHANT_ID;
+import static com.flamelab.shopserver.entities.PurchaseOperation.STOCK_MERCHANT_NAME;
+import static com.flamelab.shopserver.enums.ExportFormat.CSV;
+import static com.flamelab.shopserver.enums.NumberActionType.DECREASE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+@Service
+@RequiredArgsConstructor
+public class ProductsImportServiceImpl implements ProductsImportService {
+
+    private final ProductsService productsService;
+    private final WalletsService walletsService;
+    private final PurchaseOperationsService purchaseOperationsService;
+    private final ObjectMapper objectMapper;
+    private final int BUFFER_SIZE = 64 * 1024;
+    private final List<String> CSV_COLUMNS = List.of("name", "amount", "price");
+
+    @Value("${shop.products.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    @Override
+    @Transactional
+    public TransferProductsImportDto importProductsFromTheStock(Shop shop, ExportFormat format, InputStream inputStream) {
+        Set<String> productNames = new HashSet<>(productsService.getAllProductNamesByShopId(shop.getId()));
+        List<CreateProductDto> products = new ArrayList<>();
+        List<TransferImportErrorDto> errors = new ArrayList<>();
+        int rejectedCount = 0;
+        double totalPrice = 0;
+        // rows are read and validated one line at a time, so only the valid products are kept in memory
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, UTF_8), BUFFER_SIZE)) {
+            long lineNumber = 0;
+            int[] csvColumnIndexes = null;
+            if (format.equals(CSV)) {
+                csvColumnIndexes = readCsvHeader(reader.readLine());
+                lineNumber++;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String error;
+                CreateProductDto product = null;
+                try {
+                    product = format.equals(CSV) ? parseCsvRow(line, csvColumnIndexes) : objectMapper.readValue(line, CreateProductDto.class);
+                    error = validateProduct(product, productNames);
+                } catch (JsonProcessingException | IllegalArgumentException e) {
+                    error = String.format("Row could not be parsed: %s", e.getMessage());
+                }
+                if (error == null) {
+                    product.setOwnerShopId(shop.getId());
+                    productNames.add(product.getName());
+                    products.add(product);
+                    totalPrice += product.getAmount() * product.getPrice();
+                } else {
+                    rejectedCount++;
+                    if (errors.size() < maxReportedErrors) {
+                        errors.add(new TransferImportErrorDto(lineNumber, error));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new ResourceException(BAD_REQUEST, String.format("Products import could not be read: %s", e.getMessage()));
+        }
+        if (!products.isEmpty()) {
+            Wallet shopWallet = walletsService.getWalletByOwnerId(shop.getId());
+            if (!walletsService.isWalletHasEnoughAmountForPurchase(shopWallet.getId(), totalPrice)) {
+                throw new ResourceException(BAD_REQUEST, String.format("Shop with name '%s' has not enough money for making this purchase.", shop.getName()));
+            }
+            List<Product> createdProducts = productsService.createProducts(products);
+            walletsService.updateWalletAmount(shopWallet.getId(), DECREASE, totalPrice);
+            purchaseOperationsService.createPurchaseOperations(createdProducts.stream()
+                    .map(product -> new CreatePurchaseOperationDto(product.getId(), product.getName(), product.getAmount(), product.getAmount() * product.getPrice(),
+                            STOCK_MERCHANT_ID, STOCK_MERCHANT_NAME, shop.getId(), shop.getName()))
+                    .toList());
+        }
+        return new TransferProductsImportDto(products.size(), rejectedCount, totalPrice, errors);
+    }
+
+    private int[] readCsvHeader(String header) {
+        if (header == null) {
+            throw new ResourceException(BAD_REQUEST, "Products import is empty.");
+        }
+        List<String> columns = parseCsvLine(header).stream().map(column -> column.trim().toLowerCase()).toList();
+        int[] columnIndexes = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < CSV_COLUMNS.size(); i++) {
+            columnIndexes[i] = columns.indexOf(CSV_COLUMNS.get(i));
+            if (columnIndexes[i] < 0) {
+                throw new ResourceException(BAD_REQUEST, String.format("Products import has no column '%s' in the header.", CSV_COLUMNS.get(i)));
+            }
+        }
+        return columnIndexes;
+    }
+
+    private CreateProductDto parseCsvRow(String line, int[] columnIndexes) {
+        List<String> values = parseCsvLine(line);
+        for (int columnIndex : columnIndexes) {
+            if (columnIndex >= values.size()) {
+                throw new IllegalArgumentException(String.format("expected at least %d values", columnIndex + 1));
+            }
+        }
+        CreateProductDto product = new CreateProductDto();
+        product.setName(values.get(columnIndexes[0]));
+        product.setAmount(Integer.parseInt(values.get(columnIndexes[1]).trim()));
+        product.setPrice(Double.parseDouble(values.get(columnIndexes[2]).trim()));
+        return product;
+    }
+
+    // the reverse of escaping in the purchase history export: values with commas or quotes are quoted, quotes inside are doubled
+    private List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unclosed quote");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private String validateProduct(CreateProductDto product, Set<String> productNames) {
+        if (product.getName() == null || product.getName().isBlank()) {
+            return "Product name is empty.";
+        }
+        if (product.getAmount() == null || product.getAmount() <= 0) {
+            return String.format("Amount of product '%s' must be positive.", product.getName());
+        }
+        if (product.getPrice() == null || !Double.isFinite(product.getPrice()) || product.getPrice() <= 0) {
+            return String.format("Price of product '%s' must be positive.", product.getName());
+        }
+        if (productNames.contains(product.getName())) {
+            return String.format("Product with name '%s' already exists in the shop.", product.getName());
+        }
+        return null;
+    }
+
+}
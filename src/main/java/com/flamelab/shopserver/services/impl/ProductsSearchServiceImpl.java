@@ -0,0 +1,75 @@
+package com.flamelab.shopserver.services.impl;
+
+import com.flamelab.shopserver.entities.Product;
+import com.flamelab.shopserver.repositories.ProductsRepository;
+import com.flamelab.shopserver.services.ProductsSearchService;
+import com.flamelab.shopserver.utiles.structures.InvertedIndex;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductsSearchServiceImpl implements ProductsSearchService {
+
+    private final ProductsRepository productsRepository;
+    private final InvertedIndex productsIndex = new InvertedIndex();
+
+    @Value("${shop.products.search.max-results:100}")
+    private int maxResults;
+
+    @Value("${shop.products.search.rebuild-chunk-size:5000}")
+    private int rebuildChunkSize;
+
+    @Value("${shop.products.search.rebuild-threads:4}")
+    private int rebuildThreads;
+
+    @Override
+    public void indexProduct(Product product) {
+        productsIndex.put(product.getId(), product.getName());
+    }
+
+    @Override
+    public void removeProducts(Collection<String> productIds) {
+        productIds.forEach(productsIndex::remove);
+    }
+
+    @Override
+    public List<String> searchProductIds(String text) {
+        return productsIndex.search(text, maxResults);
+    }
+
+    @Override
+    @PostConstruct
+    public void rebuildSearchIndex() {
+        productsIndex.clear();
+        long productsCount = productsRepository.count();
+        int chunksCount = (int) ((productsCount + rebuildChunkSize - 1) / rebuildChunkSize);
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildThreads);
+        try {
+            CompletableFuture<?>[] chunks = IntStream.range(0, chunksCount)
+                    .mapToObj(chunk -> CompletableFuture.runAsync(
+                            () -> productsRepository.findAll(PageRequest.of(chunk, rebuildChunkSize, Sort.by("id")))
+                                    .forEach(this::indexProduct),
+                            executor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(chunks).join();
+        } finally {
+            executor.shutdown();
+        }
+        log.info("Products search index is built for {} products", productsCount);
+    }
+
+}
@@ -1,21 +1,46 @@
 package com.flamelab.shopserver.services.impl;
 
 import com.flamelab.shopserver.dtos.create.CreateProductDto;
+import com.flamelab.shopserver.dtos.update.UpdateProductStockDto;
 import com.flamelab.shopserver.entities.Product;
 import com.flamelab.shopserver.enums.NumberActionType;
 import com.flamelab.shopserver.exceptions.ResourceException;
 import com.flamelab.shopserver.mappers.ProductMapper;
 import com.flamelab.shopserver.repositories.ProductsRepository;
+import com.flamelab.shopserver.services.AutocompleteService;
+import com.flamelab.shopserver.services.ProductRecommendationsService;
+import com.flamelab.shopserver.services.ProductsSearchService;
 import com.flamelab.shopserver.services.ProductsService;
+import com.flamelab.shopserver.utiles.AfterCommitExecutor;
+import com.flamelab.shopserver.utiles.AsyncCacheLoader;
+import com.flamelab.shopserver.utiles.RandomDataGenerator;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static com.flamelab.shopserver.enums.NumberActionType.*;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NO_CONTENT;
 
 @Service
@@ -24,10 +49,80 @@ public class ProductsServiceImpl implements ProductsService {
 
     private final ProductsRepository productsRepository;
     private final ProductMapper productMapper;
+    private final RandomDataGenerator randomDataGenerator;
+    private final MeterRegistry meterRegistry;
+    private final AsyncCacheLoader asyncCacheLoader;
+    private final AfterCommitExecutor afterCommitExecutor;
+    private final ProductsSearchService productsSearchService;
+    private final AutocompleteService autocompleteService;
+    private final ProductRecommendationsService productRecommendationsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final String INSERT_PRODUCT = "INSERT INTO products (id, created_date, last_updated_date, owner_shop_id, name, amount, price) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    // the owner shop and the resulting amount are checked by the update itself, so a product is never read before it is changed
+    private final String UPDATE_PRODUCT_STOCK = "UPDATE products SET price = COALESCE(?, price), amount = COALESCE(?, amount) + ?, last_updated_date = ? " +
+            "WHERE id = ? AND owner_shop_id = ? AND deleted_date IS NULL AND COALESCE(?, amount) + ? >= 0";
+
+    // catalogs of shops by shop id, every write of a product evicts the catalog of its shop
+    private AsyncCache<String, List<Product>> catalogsCache;
+
+    @Value("${shop.products.catalog-cache.maximum-size:10000}")
+    private long catalogCacheMaximumSize;
+
+    @Value("${shop.products.catalog-cache.expire-after-write:10m}")
+    private Duration catalogCacheExpireAfterWrite;
+
+    @Value("${shop.products.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${shop.deletion.async-purge:false}")
+    private boolean asyncPurge;
+
+    @PostConstruct
+    public void createCatalogsCache() {
+        catalogsCache = CaffeineCacheMetrics.monitor(meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(catalogCacheMaximumSize)
+                        .expireAfterWrite(catalogCacheExpireAfterWrite)
+                        .recordStats()
+                        .buildAsync(),
+                "products.catalog");
+    }
+
+    @Override
+    public List<Product> createProducts(List<CreateProductDto> createProductDtos) {
+        List<Product> products = createProductDtos.stream().map(productMapper::mapToEntity).toList();
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT, products, batchSize, (statement, product) -> {
+            statement.setString(1, product.getId());
+            statement.setTimestamp(2, Timestamp.valueOf(product.getCreatedDate()));
+            statement.setTimestamp(3, Timestamp.valueOf(product.getLastUpdatedDate()));
+            statement.setString(4, product.getOwnerShopId());
+            statement.setString(5, product.getName());
+            statement.setInt(6, product.getAmount());
+            statement.setDouble(7, product.getPrice());
+        });
+        // new rows have nothing in the second-level cache yet, only the cached catalog queries change
+        afterCommitExecutor.execute(() -> {
+            evictFromSecondLevelCache(List.of());
+            catalogsCache.synchronous().invalidateAll(products.stream().map(Product::getOwnerShopId).distinct().toList());
+            products.forEach(productsSearchService::indexProduct);
+            autocompleteService.registerProducts(products);
+        });
+        return products;
+    }
 
     @Override
-    public Product createProduct(CreateProductDto createProductDto) {
-        return productsRepository.save(productMapper.mapToEntity(createProductDto));
+    public Product addProductFromTheStock(CreateProductDto createProductDto) {
+        Product product = productsRepository.upsertProductByName(randomDataGenerator.generateId(), LocalDateTime.now(),
+                createProductDto.getOwnerShopId(), createProductDto.getName(), createProductDto.getAmount(), createProductDto.getPrice());
+        afterCommitExecutor.execute(() -> {
+            evictFromSecondLevelCache(List.of(product.getId()));
+            catalogsCache.synchronous().invalidate(product.getOwnerShopId());
+            productsSearchService.indexProduct(product);
+            autocompleteService.registerProduct(product);
+        });
+        return product;
     }
 
     @Override
@@ -41,18 +136,35 @@ public class ProductsServiceImpl implements ProductsService {
     }
 
     @Override
+    public List<Product> getAllProductsByIds(List<String> productIds) {
+        Map<String, Product> productsById = productsRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return productIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Product> getAllProducts() {
         return productsRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Product> searchAllProductsByText(String text) {
-        return productsRepository.findAllByNameContaining(text);
+        return getAllProductsByIds(productsSearchService.searchProductIds(text));
     }
 
     @Override
     public List<Product> getAllProductsByShopId(String shopId) {
-        return productsRepository.findByOwnerShopId(shopId);
+        return asyncCacheLoader.get(catalogsCache, shopId, id -> List.copyOf(productsRepository.findByOwnerShopId(id)));
+    }
+
+    @Override
+    public List<String> getAllProductNamesByShopId(String shopId) {
+        return productsRepository.findAllNamesByOwnerShopId(shopId);
     }
 
     @Override
@@ -65,14 +177,23 @@ public class ProductsServiceImpl implements ProductsService {
     public Product setProductPrice(String productId, double newPrice) {
         Product product = getProductById(productId);
         product.setPrice(newPrice);
-        return productsRepository.save(product);
+        return saveAndEvictCatalog(product);
     }
 
     @Override
     public Product renameProduct(String productId, String newName) {
         Product product = getProductById(productId);
+        Optional<Product> namesake = productsRepository.findByOwnerShopIdAndName(product.getOwnerShopId(), newName);
+        if (namesake.isPresent() && !namesake.get().getId().equals(productId)) {
+            throw new ResourceException(BAD_REQUEST, String.format("Product with name '%s' already exists in the shop with id '%s'", newName, product.getOwnerShopId()));
+        }
         product.setName(newName);
-        return productsRepository.save(product);
+        Product savedProduct = saveAndEvictCatalog(product);
+        afterCommitExecutor.execute(() -> {
+            productsSearchService.indexProduct(savedProduct);
+            autocompleteService.registerProduct(savedProduct);
+        });
+        return savedProduct;
     }
 
     @Override
@@ -89,23 +210,92 @@ public class ProductsServiceImpl implements ProductsService {
             resultAmount = newAmount;
         }
         product.setAmount(resultAmount);
-        return productsRepository.save(product);
+        return saveAndEvictCatalog(product);
+    }
+
+    @Override
+    public List<Product> updateProductsInTheShop(String shopId, List<UpdateProductStockDto> updateProductStockDtos) {
+        Timestamp updatedDate = Timestamp.valueOf(LocalDateTime.now());
+        int[][] updatedRows = jdbcTemplate.batchUpdate(UPDATE_PRODUCT_STOCK, updateProductStockDtos, batchSize, (statement, update) -> {
+            Integer newAmount = update.getAmountAction() == CHANGE ? update.getAmount() : null;
+            int amountDelta = update.getAmountAction() == INCREASE ? update.getAmount()
+                    : update.getAmountAction() == DECREASE ? -update.getAmount() : 0;
+            statement.setObject(1, update.getPrice(), Types.DOUBLE);
+            statement.setObject(2, newAmount, Types.INTEGER);
+            statement.setInt(3, amountDelta);
+            statement.setTimestamp(4, updatedDate);
+            statement.setString(5, update.getProductId());
+            statement.setString(6, shopId);
+            statement.setObject(7, newAmount, Types.INTEGER);
+            statement.setInt(8, amountDelta);
+        });
+        List<String> notUpdatedProductIds = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : updatedRows) {
+            for (int rows : batch) {
+                if (rows == 0) {
+                    notUpdatedProductIds.add(updateProductStockDtos.get(index).getProductId());
+                }
+                index++;
+            }
+        }
+        if (!notUpdatedProductIds.isEmpty()) {
+            throw new ResourceException(BAD_REQUEST, String.format("Products %s do not exist in the shop with id '%s' or have not enough amount.", notUpdatedProductIds, shopId));
+        }
+        List<String> productIds = updateProductStockDtos.stream().map(UpdateProductStockDto::getProductId).toList();
+        afterCommitExecutor.execute(() -> {
+            evictFromSecondLevelCache(productIds);
+            catalogsCache.synchronous().invalidate(shopId);
+        });
+        return getAllProductsByIds(productIds);
     }
 
     @Override
     public void deleteProducts(List<String> productIds) {
-        productsRepository.deleteAllById(productIds);
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<String> shopIds = productsRepository.findAllOwnerShopIdsByIdIn(productIds);
+        productsRepository.deleteAllByIdIn(productIds);
+        forgetProducts(productIds, shopIds);
     }
 
     @Override
     public void deleteProductsByShopIds(List<String> shopIds) {
-        List<List<String>> productIdsByEachShop = shopIds.stream()
-                .map(productsRepository::findAllByOwnerShopId)
-                .map(products -> products.stream().map(Product::getId).collect(Collectors.toList()))
-                .toList();
-        List<String> allProductIds = new ArrayList<>();
-        productIdsByEachShop.forEach(allProductIds::addAll);
-        deleteProducts(allProductIds);
+        if (shopIds.isEmpty()) {
+            return;
+        }
+        List<String> productIds = productsRepository.findAllIdsByOwnerShopIdIn(shopIds);
+        if (asyncPurge) {
+            // the products are only hidden, the rows are reclaimed by DeletedEntitiesPurgeService
+            productsRepository.markAllDeletedByOwnerShopIdIn(shopIds, LocalDateTime.now());
+        } else {
+            productsRepository.deleteAllByOwnerShopIdIn(shopIds);
+        }
+        forgetProducts(productIds, shopIds);
+    }
+
+    private void forgetProducts(List<String> productIds, List<String> shopIds) {
+        afterCommitExecutor.execute(() -> {
+            productsSearchService.removeProducts(productIds);
+            autocompleteService.removeProducts(productIds);
+            productRecommendationsService.removeProducts(productIds);
+            catalogsCache.synchronous().invalidateAll(shopIds);
+        });
+    }
+
+    // JDBC batches and the native upsert bypass Hibernate, so the products they change and the cached catalog queries are evicted here;
+    // bulk JPQL statements of ProductsRepository are tracked by Hibernate itself
+    private void evictFromSecondLevelCache(Collection<String> productIds) {
+        org.hibernate.Cache secondLevelCache = entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class);
+        productIds.forEach(productId -> secondLevelCache.evictEntityData(Product.class, productId));
+        secondLevelCache.evictQueryRegion(ProductsRepository.OWNER_SHOP_QUERY_CACHE_REGION);
+    }
+
+    private Product saveAndEvictCatalog(Product product) {
+        Product savedProduct = productsRepository.save(product);
+        afterCommitExecutor.execute(() -> catalogsCache.synchronous().invalidate(savedProduct.getOwnerShopId()));
+        return savedProduct;
     }
 
 }
@@ -0,0 +1,494 @@
+package com.flamelab.shopserver.services.impl;
+
+import com.flamelab.shopserver.entities.PurchaseOperation;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.flamelab.shopserver.services.PurchaseHistoryArchiveService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+@Slf4j
+@Service
+public class PurchaseHistoryArchiveServiceImpl implements PurchaseHistoryArchiveService {
+
+    // an archive file is a sequence of row groups and every column of a row group is deflated separately,
+    // so a lookup inflates only the columns it filters by and decodes the rest only when some row matches.
+    // Every row group starts with the distinct values of its key columns and the file ends with a footer holding
+    // the key values of the whole file, so a lookup skips files and row groups that cannot match without inflating them
+    private static final int MAGIC = 0x50484331;
+    private static final int ID = 0;
+    private static final int CREATED_DATE = 1;
+    private static final int LAST_UPDATED_DATE = 2;
+    private static final int PRODUCT_NAME = 3;
+    private static final int AMOUNT = 4;
+    private static final int PRICE = 5;
+    private static final int MERCHANT_ID = 6;
+    private static final int MERCHANT_NAME = 7;
+    private static final int CUSTOMER_ID = 8;
+    private static final int CUSTOMER_NAME = 9;
+    private static final int PRODUCT_ID = 10;
+    private static final int COLUMNS_COUNT = 11;
+    private static final long NULL_DATE = Long.MIN_VALUE;
+    private static final int[] KEY_COLUMNS = {MERCHANT_ID, CUSTOMER_ID, PRODUCT_NAME};
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    // archive files are immutable once moved into place, a rewritten file gets a new modification time
+    private final Cache<ArchiveFileVersion, List<Set<String>>> fileKeysCache;
+    private final String FILE_EXTENSION = ".phc";
+    private final DateTimeFormatter FILE_SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    @Value("${shop.purchase-history.archive.directory:./archive/purchase_history}")
+    private Path archiveDirectory;
+
+    @Value("${shop.purchase-history.archive.row-group-size:65536}")
+    private int rowGroupSize;
+
+    public PurchaseHistoryArchiveServiceImpl(DataSource dataSource, TransactionTemplate transactionTemplate,
+                                             @Value("${shop.purchase-history.archive.footers-cache-size:120}") long footersCacheSize) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(1000);
+        this.transactionTemplate = transactionTemplate;
+        this.fileKeysCache = Caffeine.newBuilder()
+                .maximumSize(footersCacheSize)
+                .build();
+    }
+
+    @Override
+    public void archivePartition(String partitionName, YearMonth month) {
+        Path archiveFile = archiveDirectory.resolve("purchase_history_" + month.format(FILE_SUFFIX_FORMAT) + FILE_EXTENSION);
+        Path temporaryFile = archiveDirectory.resolve(archiveFile.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(archiveDirectory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                out.writeInt(MAGIC);
+                List<PurchaseOperation> rowGroup = new ArrayList<>(rowGroupSize);
+                List<Set<String>> fileKeys = newKeySets();
+                // postgres streams the rows with the fetch size only inside a transaction
+                transactionTemplate.executeWithoutResult(status -> streamingJdbcTemplate.query(
+                        String.format("SELECT id, created_date, last_updated_date, product_name, amount, price, merchant_id, merchant_name, customer_id, customer_name, product_id " +
+                                "FROM %s ORDER BY created_date", partitionName),
+                        resultSet -> {
+                            PurchaseOperation operation = new PurchaseOperation();
+                            operation.setId(resultSet.getString(1));
+                            operation.setCreatedDate(toLocalDateTime(resultSet.getTimestamp(2)));
+                            operation.setLastUpdatedDate(toLocalDateTime(resultSet.getTimestamp(3)));
+                            operation.setProductName(resultSet.getString(4));
+                            operation.setAmount(resultSet.getInt(5));
+                            operation.setPrice(resultSet.getDouble(6));
+                            operation.setMerchantId(resultSet.getString(7));
+                            operation.setMerchantName(resultSet.getString(8));
+                            operation.setCustomerId(resultSet.getString(9));
+                            operation.setCustomerName(resultSet.getString(10));
+                            operation.setProductId(resultSet.getString(11));
+                            rowGroup.add(operation);
+                            if (rowGroup.size() == rowGroupSize) {
+                                writeRowGroup(out, rowGroup, fileKeys);
+                                rowGroup.clear();
+                            }
+                        }));
+                if (!rowGroup.isEmpty()) {
+                    writeRowGroup(out, rowGroup, fileKeys);
+                }
+                out.writeInt(0);
+                out.flush();
+                long footerOffset = Files.size(temporaryFile);
+                writeKeySets(out, fileKeys);
+                out.writeLong(footerOffset);
+            }
+            Files.move(temporaryFile, archiveFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to archive partition %s", partitionName), e);
+        }
+    }
+
+    @Override
+    public Stream<PurchaseOperation> streamArchivedPurchaseOperationsByCustomerId(String customerId) {
+        return streamArchivedPurchaseOperations(new int[]{CUSTOMER_ID}, customerId::equals, keys -> keys.contains(customerId));
+    }
+
+    @Override
+    public Stream<PurchaseOperation> streamArchivedPurchaseOperationsByShopId(String shopId) {
+        return streamArchivedPurchaseOperations(new int[]{MERCHANT_ID, CUSTOMER_ID}, shopId::equals, keys -> keys.contains(shopId));
+    }
+
+    @Override
+    public Stream<PurchaseOperation> streamArchivedPurchaseOperationsByProductName(String productName) {
+        return streamArchivedPurchaseOperations(new int[]{PRODUCT_NAME}, name -> name != null && name.contains(productName),
+                keys -> keys.stream().anyMatch(name -> name.contains(productName)));
+    }
+
+    @Override
+    public Stream<PurchaseOperation> streamAllArchivedPurchaseOperations() {
+        return streamArchivedPurchaseOperations(new int[0], value -> true, keys -> true);
+    }
+
+    private Stream<PurchaseOperation> streamArchivedPurchaseOperations(int[] filterColumns, Predicate<String> filter, Predicate<Set<String>> keysFilter) {
+        if (!Files.isDirectory(archiveDirectory)) {
+            return Stream.empty();
+        }
+        List<Path> archiveFiles;
+        try (Stream<Path> files = Files.list(archiveDirectory)) {
+            archiveFiles = files.filter(file -> file.getFileName().toString().endsWith(FILE_EXTENSION))
+                    .sorted()
+                    .filter(file -> mayContainKeys(file, filterColumns, keysFilter))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        RowGroupsIterator rowGroups = new RowGroupsIterator(archiveFiles, filterColumns, filter, keysFilter);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rowGroups, Spliterator.ORDERED), false)
+                .onClose(rowGroups::close)
+                .flatMap(List::stream);
+    }
+
+    private boolean mayContainKeys(Path archiveFile, int[] filterColumns, Predicate<Set<String>> keysFilter) {
+        if (filterColumns.length == 0) {
+            return true;
+        }
+        try {
+            ArchiveFileVersion version = new ArchiveFileVersion(archiveFile, Files.getLastModifiedTime(archiveFile));
+            return matchesKeys(fileKeysCache.get(version, this::readFileKeys), filterColumns, keysFilter);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Set<String>> readFileKeys(ArchiveFileVersion version) {
+        try (SeekableByteChannel channel = Files.newByteChannel(version.file())) {
+            long footerEnd = channel.size() - Long.BYTES;
+            ByteBuffer footerOffset = ByteBuffer.allocate(Long.BYTES);
+            readFully(channel.position(footerEnd), footerOffset);
+            ByteBuffer footer = ByteBuffer.allocate(Math.toIntExact(footerEnd - footerOffset.getLong(0)));
+            readFully(channel.position(footerOffset.getLong(0)), footer);
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(footer.array()))) {
+                return readKeySets(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to read the footer of %s", version.file()), e);
+        }
+    }
+
+    private void readFully(SeekableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private boolean matchesKeys(List<Set<String>> keys, int[] filterColumns, Predicate<Set<String>> keysFilter) {
+        for (int filterColumn : filterColumns) {
+            if (keysFilter.test(keys.get(keyIndex(filterColumn)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int keyIndex(int column) {
+        for (int index = 0; index < KEY_COLUMNS.length; index++) {
+            if (KEY_COLUMNS[index] == column) {
+                return index;
+            }
+        }
+        throw new IllegalArgumentException("Column " + column + " is not a key column");
+    }
+
+    private List<Set<String>> newKeySets() {
+        List<Set<String>> keys = new ArrayList<>(KEY_COLUMNS.length);
+        for (int ignored : KEY_COLUMNS) {
+            keys.add(new HashSet<>());
+        }
+        return keys;
+    }
+
+    private void writeKeySets(DataOutputStream out, List<Set<String>> keys) throws IOException {
+        for (Set<String> columnKeys : keys) {
+            ByteArrayOutputStream keysBytes = new ByteArrayOutputStream();
+            try (DataOutputStream keysOut = new DataOutputStream(new DeflaterOutputStream(keysBytes))) {
+                keysOut.writeInt(columnKeys.size());
+                for (String key : columnKeys) {
+                    keysOut.writeUTF(key);
+                }
+            }
+            out.writeInt(keysBytes.size());
+            keysBytes.writeTo(out);
+        }
+    }
+
+    private List<Set<String>> readKeySets(DataInputStream in) throws IOException {
+        List<Set<String>> keys = new ArrayList<>(KEY_COLUMNS.length);
+        for (int ignored : KEY_COLUMNS) {
+            byte[] keysBytes = in.readNBytes(in.readInt());
+            try (DataInputStream keysIn = new DataInputStream(new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(keysBytes))))) {
+                int keysCount = keysIn.readInt();
+                Set<String> columnKeys = new HashSet<>(keysCount * 2);
+                for (int key = 0; key < keysCount; key++) {
+                    columnKeys.add(keysIn.readUTF());
+                }
+                keys.add(columnKeys);
+            }
+        }
+        return keys;
+    }
+
+    private void writeRowGroup(DataOutputStream out, List<PurchaseOperation> rowGroup, List<Set<String>> fileKeys) {
+        try {
+            out.writeInt(rowGroup.size());
+            List<Set<String>> rowGroupKeys = newKeySets();
+            for (PurchaseOperation operation : rowGroup) {
+                addKey(rowGroupKeys, MERCHANT_ID, operation.getMerchantId());
+                addKey(rowGroupKeys, CUSTOMER_ID, operation.getCustomerId());
+                addKey(rowGroupKeys, PRODUCT_NAME, operation.getProductName());
+            }
+            writeKeySets(out, rowGroupKeys);
+            for (int index = 0; index < KEY_COLUMNS.length; index++) {
+                fileKeys.get(index).addAll(rowGroupKeys.get(index));
+            }
+            for (int column = 0; column < COLUMNS_COUNT; column++) {
+                ByteArrayOutputStream columnBytes = new ByteArrayOutputStream();
+                try (DataOutputStream columnOut = new DataOutputStream(new DeflaterOutputStream(columnBytes))) {
+                    for (PurchaseOperation operation : rowGroup) {
+                        writeValue(columnOut, operation, column);
+                    }
+                }
+                out.writeInt(columnBytes.size());
+                columnBytes.writeTo(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void addKey(List<Set<String>> keys, int column, String value) {
+        if (value != null) {
+            keys.get(keyIndex(column)).add(value);
+        }
+    }
+
+    private void writeValue(DataOutputStream out, PurchaseOperation operation, int column) throws IOException {
+        switch (column) {
+            case ID -> writeString(out, operation.getId());
+            case CREATED_DATE -> writeDate(out, operation.getCreatedDate());
+            case LAST_UPDATED_DATE -> writeDate(out, operation.getLastUpdatedDate());
+            case PRODUCT_NAME -> writeString(out, operation.getProductName());
+            case AMOUNT -> out.writeInt(operation.getAmount());
+            case PRICE -> out.writeDouble(operation.getPrice());
+            case MERCHANT_ID -> writeString(out, operation.getMerchantId());
+            case MERCHANT_NAME -> writeString(out, operation.getMerchantName());
+            case CUSTOMER_ID -> writeString(out, operation.getCustomerId());
+            case CUSTOMER_NAME -> writeString(out, operation.getCustomerName());
+            case PRODUCT_ID -> writeString(out, operation.getProductId());
+            default -> throw new IllegalArgumentException("Unknown column " + column);
+        }
+    }
+
+    private void readValue(DataInputStream in, PurchaseOperation operation, int column) throws IOException {
+        switch (column) {
+            case ID -> operation.setId(readString(in));
+            case CREATED_DATE -> operation.setCreatedDate(readDate(in));
+            case LAST_UPDATED_DATE -> operation.setLastUpdatedDate(readDate(in));
+            case PRODUCT_NAME -> operation.setProductName(readString(in));
+            case AMOUNT -> operation.setAmount(in.readInt());
+            case PRICE -> operation.setPrice(in.readDouble());
+            case MERCHANT_ID -> operation.setMerchantId(readString(in));
+            case MERCHANT_NAME -> operation.setMerchantName(readString(in));
+            case CUSTOMER_ID -> operation.setCustomerId(readString(in));
+            case CUSTOMER_NAME -> operation.setCustomerName(readString(in));
+            case PRODUCT_ID -> operation.setProductId(readString(in));
+            default -> throw new IllegalArgumentException("Unknown column " + column);
+        }
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private void writeDate(DataOutputStream out, LocalDateTime value) throws IOException {
+        if (value == null) {
+            out.writeLong(NULL_DATE);
+        } else {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + value.getNano() / 1_000);
+        }
+    }
+
+    private LocalDateTime readDate(DataInputStream in) throws IOException {
+        long micros = in.readLong();
+        if (micros == NULL_DATE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private LocalDateTime toLocalDateTime(java.sql.Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private record ArchiveFileVersion(Path file, FileTime lastModifiedTime) {
+    }
+
+    private class RowGroupsIterator implements Iterator<List<PurchaseOperation>>, Closeable {
+
+        private final Deque<Path> archiveFiles;
+        private final int[] filterColumns;
+        private final Predicate<String> filter;
+        private final Predicate<Set<String>> keysFilter;
+        private DataInputStream currentFile;
+        private List<PurchaseOperation> nextRowGroup;
+
+        private RowGroupsIterator(List<Path> archiveFiles, int[] filterColumns, Predicate<String> filter, Predicate<Set<String>> keysFilter) {
+            this.archiveFiles = new ArrayDeque<>(archiveFiles);
+            this.filterColumns = filterColumns;
+            this.filter = filter;
+            this.keysFilter = keysFilter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (nextRowGroup == null) {
+                    if (currentFile == null) {
+                        if (archiveFiles.isEmpty()) {
+                            return false;
+                        }
+                        openFile(archiveFiles.poll());
+                    }
+                    int rowsCount = currentFile.readInt();
+                    if (rowsCount == 0) {
+                        close();
+                    } else {
+                        List<PurchaseOperation> rowGroup = readRowGroup(rowsCount);
+                        if (!rowGroup.isEmpty()) {
+                            nextRowGroup = rowGroup;
+                        }
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public List<PurchaseOperation> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<PurchaseOperation> rowGroup = nextRowGroup;
+            nextRowGroup = null;
+            return rowGroup;
+        }
+
+        @Override
+        public void close() {
+            if (currentFile != null) {
+                try {
+                    currentFile.close();
+                } catch (IOException e) {
+                    log.warn("Failed to close purchase history archive file", e);
+                }
+                currentFile = null;
+            }
+        }
+
+        private void openFile(Path archiveFile) throws IOException {
+            currentFile = new DataInputStream(new BufferedInputStream(Files.newInputStream(archiveFile)));
+            if (currentFile.readInt() != MAGIC) {
+                close();
+                throw new IOException(String.format("File %s is not a purchase history archive", archiveFile));
+            }
+        }
+
+        private List<PurchaseOperation> readRowGroup(int rowsCount) throws IOException {
+            if (filterColumns.length == 0) {
+                for (int ignored : KEY_COLUMNS) {
+                    currentFile.skipNBytes(currentFile.readInt());
+                }
+            } else {
+                List<Set<String>> rowGroupKeys = readKeySets(currentFile);
+                if (!matchesKeys(rowGroupKeys, filterColumns, keysFilter)) {
+                    for (int column = 0; column < COLUMNS_COUNT; column++) {
+                        currentFile.skipNBytes(currentFile.readInt());
+                    }
+                    return List.of();
+                }
+            }
+            byte[][] columns = new byte[COLUMNS_COUNT][];
+            for (int column = 0; column < COLUMNS_COUNT; column++) {
+                columns[column] = currentFile.readNBytes(currentFile.readInt());
+            }
+            boolean[] matches = new boolean[rowsCount];
+            boolean anyMatch = filterColumns.length == 0;
+            Arrays.fill(matches, anyMatch);
+            for (int filterColumn : filterColumns) {
+                try (DataInputStream in = inflate(columns[filterColumn])) {
+                    for (int row = 0; row < rowsCount; row++) {
+                        if (filter.test(readString(in))) {
+                            matches[row] = true;
+                            anyMatch = true;
+                        }
+                    }
+                }
+            }
+            if (!anyMatch) {
+                return List.of();
+            }
+            List<PurchaseOperation> matchedOperations = new ArrayList<>();
+            PurchaseOperation[] operations = new PurchaseOperation[rowsCount];
+            PurchaseOperation skippedOperation = new PurchaseOperation();
+            for (int row = 0; row < rowsCount; row++) {
+                if (matches[row]) {
+                    operations[row] = new PurchaseOperation();
+                    matchedOperations.add(operations[row]);
+                } else {
+                    operations[row] = skippedOperation;
+                }
+            }
+            for (int column = 0; column < COLUMNS_COUNT; column++) {
+                try (DataInputStream in = inflate(columns[column])) {
+                    for (int row = 0; row < rowsCount; row++) {
+                        readValue(in, operations[row], column);
+                    }
+                }
+            }
+            return matchedOperations;
+        }
+
+        private DataInputStream inflate(byte[] column) {
+            return new DataInputStream(new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(column))));
+        }
+
+    }
+
+}
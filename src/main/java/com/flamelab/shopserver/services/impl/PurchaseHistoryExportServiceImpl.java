@@ -0,0 +1,116 @@
+package com.flamelab.shopserver.services.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flamelab.shopserver.entities.PurchaseOperation;
+import com.flamelab.shopserver.enums.ExportFormat;
+import com.flamelab.shopserver.mappers.PurchaseOperationMapper;
+import com.flamelab.shopserver.repositories.PurchaseOperationsRepository;
+import com.flamelab.shopserver.services.PurchaseHistoryArchiveService;
+import com.flamelab.shopserver.services.PurchaseHistoryExportService;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.flamelab.shopserver.enums.ExportFormat.CSV;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+@Service
+@RequiredArgsConstructor
+public class PurchaseHistoryExportServiceImpl implements PurchaseHistoryExportService {
+
+    private final PurchaseOperationsRepository purchaseOperationsRepository;
+    private final PurchaseOperationMapper purchaseOperationMapper;
+    private final PurchaseHistoryArchiveService purchaseHistoryArchiveService;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final int BUFFER_SIZE = 64 * 1024;
+    private final String CSV_HEADER = "id,createdDate,lastUpdatedDate,productId,productName,amount,price,merchantId,merchantName,customerId,customerName";
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportPurchaseOperationsByUser(String userId, ExportFormat format, boolean gzip, OutputStream outputStream) throws IOException {
+        try (Stream<PurchaseOperation> operations = Stream.concat(
+                purchaseHistoryArchiveService.streamArchivedPurchaseOperationsByCustomerId(userId),
+                purchaseOperationsRepository.streamAllByCustomerId(userId))) {
+            writeOperations(operations, format, gzip, outputStream);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportPurchaseOperationsByShop(String shopId, ExportFormat format, boolean gzip, OutputStream outputStream) throws IOException {
+        try (Stream<PurchaseOperation> operations = Stream.concat(
+                purchaseHistoryArchiveService.streamArchivedPurchaseOperationsByShopId(shopId),
+                purchaseOperationsRepository.streamAllByShopId(shopId))) {
+            writeOperations(operations, format, gzip, outputStream);
+        }
+    }
+
+    private void writeOperations(Stream<PurchaseOperation> operations, ExportFormat format, boolean gzip, OutputStream outputStream) throws IOException {
+        GZIPOutputStream gzipOutputStream = gzip ? new GZIPOutputStream(outputStream, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip ? gzipOutputStream : outputStream, UTF_8), BUFFER_SIZE);
+        if (format.equals(CSV)) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        Iterator<PurchaseOperation> iterator = operations.iterator();
+        while (iterator.hasNext()) {
+            PurchaseOperation operation = iterator.next();
+            if (format.equals(CSV)) {
+                writeCsvRow(writer, operation);
+            } else {
+                writer.write(objectMapper.writeValueAsString(purchaseOperationMapper.mapToDto(operation)));
+            }
+            writer.write('\n');
+            // rows are written once, so they are not kept in the persistence context for the rest of the export
+            if (entityManager.contains(operation)) {
+                entityManager.detach(operation);
+            }
+        }
+        writer.flush();
+        if (gzip) {
+            gzipOutputStream.finish();
+        }
+    }
+
+    private void writeCsvRow(Writer writer, PurchaseOperation operation) throws IOException {
+        writer.write(escapeCsvValue(operation.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(operation.getCreatedDate()));
+        writer.write(',');
+        writer.write(String.valueOf(operation.getLastUpdatedDate()));
+        writer.write(',');
+        writer.write(escapeCsvValue(operation.getProductId()));
+        writer.write(',');
+        writer.write(escapeCsvValue(operation.getProductName()));
+        writer.write(',');
+        writer.write(String.valueOf(operation.getAmount()));
+        writer.write(',');
+        writer.write(String.valueOf(operation.getPrice()));
+        writer.write(',');
+        writer.write(escapeCsvValue(operation.getMerchantId()));
+        writer.write(',');
+        writer.write(escapeCsvValue(operation.getMerchantName()));
+        writer.write(',');
+        writer.write(escapeCsvValue(operation.getCustomerId()));
+        writer.write(',');
+        writer.write(escapeCsvValue(operation.getCustomerName()));
+    }
+
+    private String escapeCsvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+}
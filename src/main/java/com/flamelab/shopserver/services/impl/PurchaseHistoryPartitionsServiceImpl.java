@@ -0,0 +1,109 @@
+package com.flamelab.shopserver.services.impl;
+
+import com.flamelab.shopserver.services.PurchaseHistoryArchiveService;
+import com.flamelab.shopserver.services.PurchaseHistoryPartitionsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PurchaseHistoryPartitionsServiceImpl implements PurchaseHistoryPartitionsService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PurchaseHistoryArchiveService purchaseHistoryArchiveService;
+    private final String PARTITION_PREFIX = "purchase_history_p";
+    private final String DEFAULT_PARTITION = "purchase_history_default";
+    private final DateTimeFormatter PARTITION_SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    @Value("${shop.purchase-history.partitions.months-ahead:2}")
+    private int monthsAhead;
+
+    @Value("${shop.purchase-history.archive.after-months:12}")
+    private int archiveAfterMonths;
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void preparePartitions() {
+        List<String> tableKinds = jdbcTemplate.queryForList(
+                "SELECT c.relkind::text FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                        "WHERE c.relname = 'purchase_history' AND n.nspname = current_schema()",
+                String.class);
+        // the table is converted by V4__partition_purchase_history.sql before the application starts
+        if (tableKinds.isEmpty() || !tableKinds.get(0).equals("p")) {
+            log.warn("Table purchase_history is not partitioned, partitions are not prepared");
+            return;
+        }
+        createUpcomingPartitions();
+    }
+
+    @Override
+    @Scheduled(cron = "${shop.purchase-history.partitions.maintenance-cron:0 15 0 * * *}")
+    public void maintainPartitions() {
+        createUpcomingPartitions();
+        YearMonth archiveBefore = YearMonth.now().minusMonths(archiveAfterMonths);
+        for (String partitionName : getPartitionNames()) {
+            YearMonth month = YearMonth.parse(partitionName.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX_FORMAT);
+            if (month.isBefore(archiveBefore)) {
+                purchaseHistoryArchiveService.archivePartition(partitionName, month);
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.execute(String.format("ALTER TABLE purchase_history DETACH PARTITION %s", partitionName));
+                    jdbcTemplate.execute(String.format("DROP TABLE %s", partitionName));
+                });
+                log.info("Partition {} of purchase_history archived", partitionName);
+            }
+        }
+    }
+
+    private void createUpcomingPartitions() {
+        YearMonth currentMonth = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(currentMonth.plusMonths(i));
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        String partitionName = PARTITION_PREFIX + month.format(PARTITION_SUFFIX_FORMAT);
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partitionName)) {
+            return;
+        }
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        // operations of the month that went to the default partition are moved first, otherwise the attach is rejected
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute(String.format("CREATE TABLE %s (LIKE purchase_history INCLUDING DEFAULTS)", partitionName));
+            jdbcTemplate.update(String.format(
+                    "WITH moved AS (DELETE FROM %s WHERE created_date >= ? AND created_date < ? RETURNING *) " +
+                            "INSERT INTO %s SELECT * FROM moved", DEFAULT_PARTITION, partitionName), from, to);
+            jdbcTemplate.execute(String.format("ALTER TABLE purchase_history ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')",
+                    partitionName, from, to));
+        });
+    }
+
+    private List<String> getPartitionNames() {
+        return jdbcTemplate.queryForList(
+                "SELECT child.relname::text FROM pg_inherits " +
+                        "JOIN pg_class parent ON pg_inherits.inhparent = parent.oid " +
+                        "JOIN pg_class child ON pg_inherits.inhrelid = child.oid " +
+                        "JOIN pg_namespace n ON n.oid = parent.relnamespace " +
+                        "WHERE parent.relname = 'purchase_history' AND n.nspname = current_schema() " +
+                        "ORDER BY child.relname",
+                String.class).stream()
+                .filter(name -> name.startsWith(PARTITION_PREFIX))
+                .toList();
+    }
+
+}
@@ -5,16 +5,25 @@ import com.flamelab.shopserver.entities.PurchaseOperation;
 import com.flamelab.shopserver.exceptions.ResourceException;
 import com.flamelab.shopserver.mappers.PurchaseOperationMapper;
 import com.flamelab.shopserver.repositories.PurchaseOperationsRepository;
+import com.flamelab.shopserver.services.ProductRecommendationsService;
+import com.flamelab.shopserver.services.PurchaseHistoryArchiveService;
 import com.flamelab.shopserver.services.PurchaseOperationsService;
+import com.flamelab.shopserver.services.SalesRollupsService;
+import com.flamelab.shopserver.utiles.AfterCommitExecutor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.springframework.http.HttpStatus.NO_CONTENT;
 
@@ -24,10 +33,47 @@ public class PurchaseOperationsServiceImpl implements PurchaseOperationsService
 
     private final PurchaseOperationsRepository purchaseOperationsRepository;
     private final PurchaseOperationMapper purchaseOperationMapper;
+    private final SalesRollupsService salesRollupsService;
+    private final PurchaseHistoryArchiveService purchaseHistoryArchiveService;
+    private final ProductRecommendationsService productRecommendationsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final AfterCommitExecutor afterCommitExecutor;
+    private final String INSERT_PURCHASE_OPERATION = "INSERT INTO purchase_history (id, created_date, last_updated_date, product_id, product_name, amount, price, " +
+            "merchant_id, merchant_name, customer_id, customer_name) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Value("${shop.products.import.batch-size:1000}")
+    private int batchSize;
 
     @Override
     public void createPurchaseOperation(CreatePurchaseOperationDto createPurchaseOperationDto) {
-        purchaseOperationsRepository.save(purchaseOperationMapper.mapToEntity(createPurchaseOperationDto));
+        PurchaseOperation operation = purchaseOperationsRepository.save(purchaseOperationMapper.mapToEntity(createPurchaseOperationDto));
+        // a rebuild of the sales rollups relies on purchases being registered only once they are committed
+        afterCommitExecutor.execute(() -> {
+            salesRollupsService.registerPurchaseOperation(operation);
+            productRecommendationsService.registerPurchaseOperation(operation);
+        });
+    }
+
+    @Override
+    public void createPurchaseOperations(List<CreatePurchaseOperationDto> createPurchaseOperationDtos) {
+        List<PurchaseOperation> operations = createPurchaseOperationDtos.stream().map(purchaseOperationMapper::mapToEntity).toList();
+        jdbcTemplate.batchUpdate(INSERT_PURCHASE_OPERATION, operations, batchSize, (statement, operation) -> {
+            statement.setString(1, operation.getId());
+            statement.setTimestamp(2, Timestamp.valueOf(operation.getCreatedDate()));
+            statement.setTimestamp(3, Timestamp.valueOf(operation.getLastUpdatedDate()));
+            statement.setString(4, operation.getProductId());
+            statement.setString(5, operation.getProductName());
+            statement.setInt(6, operation.getAmount());
+            statement.setDouble(7, operation.getPrice());
+            statement.setString(8, operation.getMerchantId());
+            statement.setString(9, operation.getMerchantName());
+            statement.setString(10, operation.getCustomerId());
+            statement.setString(11, operation.getCustomerName());
+        });
+        afterCommitExecutor.execute(() -> operations.forEach(operation -> {
+            salesRollupsService.registerPurchaseOperation(operation);
+            productRecommendationsService.registerPurchaseOperation(operation);
+        }));
     }
 
     @Override
@@ -41,15 +87,25 @@ public class PurchaseOperationsServiceImpl implements PurchaseOperationsService
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PurchaseOperation> getAllPurchaseOperationsByUser(String userId) {
-        return purchaseOperationsRepository.findAllByCustomerId(userId).stream()
+        List<PurchaseOperation> result = new ArrayList<>();
+        try (Stream<PurchaseOperation> archivedOperations = purchaseHistoryArchiveService.streamArchivedPurchaseOperationsByCustomerId(userId)) {
+            archivedOperations.forEach(result::add);
+        }
+        result.addAll(purchaseOperationsRepository.findAllByCustomerId(userId));
+        return result.stream()
                 .sorted(Comparator.comparing(PurchaseOperation::getCreatedDate))
                 .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PurchaseOperation> getAllPurchaseOperationsByShop(String shopId) {
         List<PurchaseOperation> result = new ArrayList<>();
+        try (Stream<PurchaseOperation> archivedOperations = purchaseHistoryArchiveService.streamArchivedPurchaseOperationsByShopId(shopId)) {
+            archivedOperations.forEach(result::add);
+        }
         result.addAll(purchaseOperationsRepository.findAllByMerchantId(shopId));
         result.addAll(purchaseOperationsRepository.findAllByCustomerId(shopId));
         return result.stream()
@@ -58,8 +114,14 @@ public class PurchaseOperationsServiceImpl implements PurchaseOperationsService
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PurchaseOperation> getAllPurchaseOperationsByShopAndContainsTextInProductName(String shopId, String productName) {
-        return purchaseOperationsRepository.findAllByProductNameContaining(productName);
+        List<PurchaseOperation> result = new ArrayList<>();
+        try (Stream<PurchaseOperation> archivedOperations = purchaseHistoryArchiveService.streamArchivedPurchaseOperationsByProductName(productName)) {
+            archivedOperations.forEach(result::add);
+        }
+        result.addAll(purchaseOperationsRepository.findAllByProductNameContaining(productName));
+        return result;
     }
 
 
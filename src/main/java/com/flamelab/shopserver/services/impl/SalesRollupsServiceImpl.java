@@ -0,0 +1,293 @@
+package com.flamelab.shopserver.services.impl;
+
+import com.flamelab.shopserver.dtos.transfer.TransferSalesStatisticsDto;
+import com.flamelab.shopserver.entities.PurchaseOperation;
+import com.flamelab.shopserver.entities.SalesRollup;
+import com.flamelab.shopserver.enums.SalesPeriod;
+import com.flamelab.shopserver.exceptions.ResourceException;
+import com.flamelab.shopserver.repositories.SalesRollupsRepository;
+import com.flamelab.shopserver.services.PurchaseHistoryArchiveService;
+import com.flamelab.shopserver.services.SalesRollupsService;
+import com.flamelab.shopserver.utiles.RandomDataGenerator;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import static com.flamelab.shopserver.entities.PurchaseOperation.STOCK_MERCHANT_ID;
+import static org.springframework.http.HttpStatus.CONFLICT;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesRollupsServiceImpl implements SalesRollupsService {
+
+    private final SalesRollupsRepository salesRollupsRepository;
+    private final PurchaseHistoryArchiveService purchaseHistoryArchiveService;
+    private final RandomDataGenerator randomDataGenerator;
+    private final TransactionTemplate transactionTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final String SELECT_DAILY_TOTALS = "SELECT merchant_id, product_name, CAST(created_date AS date) AS sales_date, " +
+            "count(*) AS purchases_count, sum(amount) AS units_amount, sum(price) AS revenue " +
+            "FROM purchase_history WHERE merchant_id IS DISTINCT FROM :stockMerchantId GROUP BY 1, 2, 3";
+    private final String SELECT_EXISTING_OPERATION_IDS = "SELECT id FROM purchase_history WHERE id IN (:ids)";
+    private final int OPERATION_IDS_CHUNK_SIZE = 1000;
+
+    // totals per (shop, period start) and per (shop, product, period start) for every SalesPeriod
+    private volatile Map<SalesKey, SalesTotals> salesView = new ConcurrentHashMap<>();
+    // purchases take the read lock so that they can run concurrently, a rebuild takes the write lock
+    // only for the short steps that hand the purchases registered meanwhile over to the rebuilt rollups
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuildInProgress = new AtomicBoolean(false);
+    // purchases registered while a rebuild is in progress, they are added to the rebuilt rollups instead of the table
+    private volatile Queue<PurchaseOperation> operationsDuringRebuild;
+
+    @PostConstruct
+    public void loadSalesView() {
+        salesRollupsRepository.findAll().forEach(rollup -> addToSalesView(salesView,
+                rollup.getShopId(), rollup.getProductName(), rollup.getSalesDate(),
+                rollup.getPurchasesCount(), rollup.getUnitsAmount(), rollup.getRevenue()));
+    }
+
+    @Override
+    public void registerPurchaseOperation(PurchaseOperation operation) {
+        if (STOCK_MERCHANT_ID.equals(operation.getMerchantId())) {
+            return;
+        }
+        rebuildLock.readLock().lock();
+        try {
+            Queue<PurchaseOperation> queuedOperations = operationsDuringRebuild;
+            if (queuedOperations == null) {
+                addToSalesRollups(operation);
+            } else {
+                queuedOperations.add(operation);
+            }
+            addToSalesView(salesView, operation);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public TransferSalesStatisticsDto getShopSalesStatistics(String shopId, SalesPeriod period, LocalDate date) {
+        return provideSalesStatistics(new SalesKey(shopId, null, period, period.getPeriodStart(date)));
+    }
+
+    @Override
+    public TransferSalesStatisticsDto getShopProductSalesStatistics(String shopId, String productName, SalesPeriod period, LocalDate date) {
+        return provideSalesStatistics(new SalesKey(shopId, productName, period, period.getPeriodStart(date)));
+    }
+
+    @Override
+    public void startSalesRollupsRebuild() {
+        if (rebuildInProgress.get()) {
+            throw new ResourceException(CONFLICT, "Sales rollups rebuild is already in progress.");
+        }
+        CompletableFuture.runAsync(this::rebuildSalesRollups);
+    }
+
+    // the totals are read from one snapshot of purchase_history without blocking purchases. Purchases are registered after
+    // their commit, so every purchase queued since the start of the rebuild is added unless that snapshot already has it
+    @Override
+    @Scheduled(cron = "${shop.sales-rollups.rebuild-cron:-}")
+    public void rebuildSalesRollups() {
+        if (!rebuildInProgress.compareAndSet(false, true)) {
+            log.warn("Sales rollups rebuild is already in progress, skipping");
+            return;
+        }
+        // purchases taken from the queue that the rollups table does not have yet
+        List<PurchaseOperation> takenOperations = new ArrayList<>();
+        try {
+            withWriteLock(() -> operationsDuringRebuild = new ConcurrentLinkedQueue<>());
+            // the snapshot transaction stays open until the hand-over: a purchase can commit before the snapshot and be
+            // registered only after the first check, so the rest of the queue is checked against the same snapshot
+            Integer rollupsCount = createSnapshotTransactionTemplate().execute(status -> {
+                Map<DailyKey, SalesTotals> dailyTotals = collectDailyTotals();
+                takeOperationsMissingInSnapshot(takenOperations).forEach(operation -> addToDailyTotals(dailyTotals, operation));
+                List<SalesRollup> rollups = dailyTotals.entrySet().stream()
+                        .map(entry -> mapToEntity(entry.getKey(), entry.getValue()))
+                        .toList();
+                TransactionTemplate writeTransactionTemplate = createWriteTransactionTemplate();
+                writeTransactionTemplate.executeWithoutResult(writeStatus -> {
+                    salesRollupsRepository.deleteAllInBatch();
+                    salesRollupsRepository.saveAll(rollups);
+                });
+                takenOperations.clear();
+                Map<SalesKey, SalesTotals> rebuiltSalesView = new ConcurrentHashMap<>();
+                rollups.forEach(rollup -> addToSalesView(rebuiltSalesView,
+                        rollup.getShopId(), rollup.getProductName(), rollup.getSalesDate(),
+                        rollup.getPurchasesCount(), rollup.getUnitsAmount(), rollup.getRevenue()));
+                withWriteLock(() -> {
+                    List<PurchaseOperation> lateOperations = takeOperationsMissingInSnapshot(takenOperations);
+                    writeTransactionTemplate.executeWithoutResult(writeStatus -> lateOperations.forEach(this::addToSalesRollups));
+                    takenOperations.clear();
+                    lateOperations.forEach(operation -> addToSalesView(rebuiltSalesView, operation));
+                    operationsDuringRebuild = null;
+                    salesView = rebuiltSalesView;
+                });
+                return rollups.size();
+            });
+            log.info("Sales rollups rebuilt: {} daily rollups", rollupsCount);
+        } finally {
+            if (operationsDuringRebuild != null) {
+                // the rebuild failed, the purchases it took over go to the rollups table as usual
+                withWriteLock(() -> {
+                    takenOperations.forEach(this::addToSalesRollups);
+                    operationsDuringRebuild.forEach(this::addToSalesRollups);
+                    operationsDuringRebuild = null;
+                });
+            }
+            rebuildInProgress.set(false);
+        }
+    }
+
+    // a repeatable read transaction keeps the snapshot of its first query until the end
+    private TransactionTemplate createSnapshotTransactionTemplate() {
+        TransactionTemplate snapshotTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        snapshotTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshotTransactionTemplate.setReadOnly(true);
+        return snapshotTransactionTemplate;
+    }
+
+    // the rollups are written while the read-only snapshot transaction is still open
+    private TransactionTemplate createWriteTransactionTemplate() {
+        TransactionTemplate writeTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        writeTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return writeTransactionTemplate;
+    }
+
+    private Map<DailyKey, SalesTotals> collectDailyTotals() {
+        Map<DailyKey, SalesTotals> dailyTotals = new ConcurrentHashMap<>();
+        CompletableFuture<Void> archivedTotals = CompletableFuture.runAsync(() -> {
+            try (Stream<PurchaseOperation> archivedOperations = purchaseHistoryArchiveService.streamAllArchivedPurchaseOperations()) {
+                archivedOperations.forEach(operation -> addToDailyTotals(dailyTotals, operation));
+            }
+        });
+        // postgres aggregates the live partitions itself, only the daily totals come back
+        namedParameterJdbcTemplate.query(SELECT_DAILY_TOTALS, Map.of("stockMerchantId", STOCK_MERCHANT_ID), resultSet -> {
+            dailyTotals.computeIfAbsent(
+                            new DailyKey(resultSet.getString("merchant_id"), resultSet.getString("product_name"), resultSet.getObject("sales_date", LocalDate.class)),
+                            key -> new SalesTotals())
+                    .add(resultSet.getLong("purchases_count"), resultSet.getLong("units_amount"), resultSet.getDouble("revenue"));
+        });
+        archivedTotals.join();
+        return dailyTotals;
+    }
+
+    // drains the queue into takenOperations and returns the purchases the snapshot of the current transaction does not have
+    private List<PurchaseOperation> takeOperationsMissingInSnapshot(List<PurchaseOperation> takenOperations) {
+        List<PurchaseOperation> queuedOperations = new ArrayList<>();
+        for (PurchaseOperation operation = operationsDuringRebuild.poll(); operation != null; operation = operationsDuringRebuild.poll()) {
+            queuedOperations.add(operation);
+        }
+        takenOperations.addAll(queuedOperations);
+        Set<String> operationIdsInSnapshot = new HashSet<>();
+        for (int from = 0; from < queuedOperations.size(); from += OPERATION_IDS_CHUNK_SIZE) {
+            List<String> ids = queuedOperations.subList(from, Math.min(from + OPERATION_IDS_CHUNK_SIZE, queuedOperations.size())).stream()
+                    .map(PurchaseOperation::getId)
+                    .toList();
+            operationIdsInSnapshot.addAll(namedParameterJdbcTemplate.queryForList(SELECT_EXISTING_OPERATION_IDS, new MapSqlParameterSource("ids", ids), String.class));
+        }
+        return queuedOperations.stream()
+                .filter(operation -> !operationIdsInSnapshot.contains(operation.getId()))
+                .toList();
+    }
+
+    private void withWriteLock(Runnable action) {
+        rebuildLock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    private void addToSalesRollups(PurchaseOperation operation) {
+        salesRollupsRepository.addPurchaseToSalesRollup(randomDataGenerator.generateId(), LocalDateTime.now(),
+                operation.getMerchantId(), operation.getProductName(), operation.getCreatedDate().toLocalDate(), operation.getAmount(), operation.getPrice());
+    }
+
+    private void addToDailyTotals(Map<DailyKey, SalesTotals> dailyTotals, PurchaseOperation operation) {
+        if (STOCK_MERCHANT_ID.equals(operation.getMerchantId())) {
+            return;
+        }
+        dailyTotals.computeIfAbsent(
+                        new DailyKey(operation.getMerchantId(), operation.getProductName(), operation.getCreatedDate().toLocalDate()),
+                        key -> new SalesTotals())
+                .add(1, operation.getAmount(), operation.getPrice());
+    }
+
+    private void addToSalesView(Map<SalesKey, SalesTotals> view, PurchaseOperation operation) {
+        addToSalesView(view, operation.getMerchantId(), operation.getProductName(), operation.getCreatedDate().toLocalDate(),
+                1, operation.getAmount(), operation.getPrice());
+    }
+
+    private void addToSalesView(Map<SalesKey, SalesTotals> view, String shopId, String productName, LocalDate salesDate, long purchasesCount, long unitsAmount, double revenue) {
+        for (SalesPeriod period : SalesPeriod.values()) {
+            LocalDate periodStart = period.getPeriodStart(salesDate);
+            view.computeIfAbsent(new SalesKey(shopId, null, period, periodStart), key -> new SalesTotals())
+                    .add(purchasesCount, unitsAmount, revenue);
+            view.computeIfAbsent(new SalesKey(shopId, productName, period, periodStart), key -> new SalesTotals())
+                    .add(purchasesCount, unitsAmount, revenue);
+        }
+    }
+
+    private TransferSalesStatisticsDto provideSalesStatistics(SalesKey key) {
+        SalesTotals totals = salesView.getOrDefault(key, new SalesTotals());
+        return new TransferSalesStatisticsDto(key.shopId(), key.productName(), key.period(), key.periodStart(),
+                totals.purchasesCount.sum(), totals.unitsAmount.sum(), totals.revenue.sum());
+    }
+
+    private SalesRollup mapToEntity(DailyKey key, SalesTotals totals) {
+        SalesRollup entity = new SalesRollup();
+        entity.setId(randomDataGenerator.generateId());
+        entity.setCreatedDate(LocalDateTime.now());
+        entity.setLastUpdatedDate(LocalDateTime.now());
+        entity.setShopId(key.shopId());
+        entity.setProductName(key.productName());
+        entity.setSalesDate(key.salesDate());
+        entity.setPurchasesCount(totals.purchasesCount.sum());
+        entity.setUnitsAmount(totals.unitsAmount.sum());
+        entity.setRevenue(totals.revenue.sum());
+        return entity;
+    }
+
+    private record SalesKey(String shopId, String productName, SalesPeriod period, LocalDate periodStart) {
+    }
+
+    private record DailyKey(String shopId, String productName, LocalDate salesDate) {
+    }
+
+    private static class SalesTotals {
+
+        private final LongAdder purchasesCount = new LongAdder();
+        private final LongAdder unitsAmount = new LongAdder();
+        private final DoubleAdder revenue = new DoubleAdder();
+
+        private void add(long purchases, long units, double amount) {
+            purchasesCount.add(purchases);
+            unitsAmount.add(units);
+            revenue.add(amount);
+        }
+
+    }
+
+}
@@ -1,39 +1,71 @@
 package com.flamelab.shopserver.services.impl;
 
+import com.flamelab.shopserver.entities.EmailOutboxMessage;
+import com.flamelab.shopserver.repositories.EmailOutboxRepository;
 import com.flamelab.shopserver.services.SendEmailService;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.InternetAddress;
-import jakarta.mail.internet.MimeMessage;
+import com.flamelab.shopserver.utiles.RandomDataGenerator;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.io.UnsupportedEncodingException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
 
-//@Service
-//@RequiredArgsConstructor
+import static com.flamelab.shopserver.enums.EmailStatus.PENDING;
+
+// emails are only written to the outbox here, in the transaction of the request,
+// EmailDispatchService sends them to the SMTP server in the background
+@Slf4j
+@Service
+@RequiredArgsConstructor
 public class SendEmailServiceImpl implements SendEmailService {
 
-    @Value("\\${spring.mail.sender.email}")
-    private String sender;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final RandomDataGenerator randomDataGenerator;
+    private final JdbcTemplate jdbcTemplate;
+    private final String DELETE_STALE_MESSAGES_BATCH = "DELETE FROM email_outbox WHERE id IN " +
+            "(SELECT id FROM email_outbox WHERE created_date < ? LIMIT ?)";
+
+    @Value("${shop.email.outbox.retention:7d}")
+    private Duration retention;
 
-//    private final JavaMailSender javaMailSender;
+    @Value("${shop.email.outbox.reaper-batch-size:1000}")
+    private int reaperBatchSize;
 
     @Override
     public void sendEmail(String receiverEmail, String subject, String text) {
-//        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
-//        MimeMessageHelper message = new MimeMessageHelper(mimeMessage);
-//        try {
-//            message.setFrom(new InternetAddress(sender));
-//            message.setTo(receiverEmail);
-//            message.setSubject(subject);
-//            message.setText(text, true);
-//            javaMailSender.send(mimeMessage);
-//        } catch (MessagingException e) {
-//            throw new RuntimeException(e);
-//        }
+        LocalDateTime now = LocalDateTime.now();
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setId(randomDataGenerator.generateId());
+        message.setCreatedDate(now);
+        message.setLastUpdatedDate(now);
+        message.setReceiverEmail(receiverEmail);
+        message.setSubject(subject);
+        message.setText(text);
+        message.setStatus(PENDING.name());
+        message.setAttempts(0);
+        message.setNextAttemptDate(now);
+        emailOutboxRepository.save(message);
+    }
+
+    // runs whether or not this instance dispatches emails, so the outbox stays bounded when no instance does,
+    // and messages that failed every attempt are kept for inspection only as long as the retention
+    @Scheduled(fixedDelayString = "${shop.email.outbox.reaper-interval:60000}", initialDelayString = "${shop.email.outbox.reaper-interval:60000}")
+    public void deleteStaleMessages() {
+        Timestamp createdBefore = Timestamp.valueOf(LocalDateTime.now().minus(retention));
+        int deleted = 0;
+        int batch;
+        do {
+            batch = jdbcTemplate.update(DELETE_STALE_MESSAGES_BATCH, createdBefore, reaperBatchSize);
+            deleted += batch;
+        } while (batch == reaperBatchSize);
+        if (deleted > 0) {
+            log.warn("Deleted {} emails that were not sent within {}", deleted, retention);
+        }
     }
 
 }
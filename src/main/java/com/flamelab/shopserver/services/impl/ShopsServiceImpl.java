@@ -1,16 +1,25 @@
 package com.flamelab.shopserver.services.impl;
 
 import com.flamelab.shopserver.dtos.create.CreateShopDto;
+import com.flamelab.shopserver.dtos.transfer.TransferShopDto;
 import com.flamelab.shopserver.entities.Shop;
 import com.flamelab.shopserver.entities.User;
 import com.flamelab.shopserver.exceptions.ResourceException;
 import com.flamelab.shopserver.mappers.ShopMapper;
 import com.flamelab.shopserver.repositories.ShopsRepository;
+import com.flamelab.shopserver.services.AutocompleteService;
 import com.flamelab.shopserver.services.ShopsService;
 import com.flamelab.shopserver.services.UsersService;
+import com.flamelab.shopserver.utiles.AfterCommitExecutor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,11 +32,18 @@ public class ShopsServiceImpl implements ShopsService {
     private final ShopsRepository shopsRepository;
     private final ShopMapper shopMapper;
     private final UsersService usersService;
+    private final AutocompleteService autocompleteService;
+    private final AfterCommitExecutor afterCommitExecutor;
+
+    @Value("${shop.deletion.async-purge:false}")
+    private boolean asyncPurge;
 
     @Override
     public Shop createShop(CreateShopDto createShopDto, String walletId, String userId) {
         User user = usersService.getUserById(userId);
-        return shopsRepository.save(shopMapper.mapToEntity(createShopDto, walletId, userId, user.getUsername()));
+        Shop shop = shopsRepository.save(shopMapper.mapToEntity(createShopDto, walletId, userId, user.getUsername()));
+        afterCommitExecutor.execute(() -> autocompleteService.registerShop(shop));
+        return shop;
     }
 
     @Override
@@ -51,25 +67,64 @@ public class ShopsServiceImpl implements ShopsService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Shop> getAllShops() {
         return shopsRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransferShopDto> getAllShopsWithWallets() {
+        return shopsRepository.findAllShopsWithWallets();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<TransferShopDto> getShopsWithWalletsPage(Pageable pageable) {
+        return shopsRepository.findAllShopsWithWallets(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransferShopDto> getShopsWithWalletsAfterId(String afterId, Pageable pageable) {
+        return shopsRepository.findAllShopsWithWalletsAfterId(afterId, pageable);
+    }
+
     @Override
     public List<Shop> getAllShopsByOwnerId(String ownerId) {
         return shopsRepository.findAllByOwnerId(ownerId);
     }
 
     @Override
+    public List<String> getAllShopIdsByOwnerId(String ownerId) {
+        return shopsRepository.findAllIdsByOwnerId(ownerId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransferShopDto> getAllShopsWithWalletsByOwnerId(String ownerId) {
+        return shopsRepository.findAllShopsWithWalletsByOwnerId(ownerId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Shop> getAllShopsByTextInName(String text) {
         return shopsRepository.findAllByNameContaining(text);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransferShopDto> getAllShopsWithWalletsByTextInName(String text) {
+        return shopsRepository.findAllShopsWithWalletsByNameContaining(text);
+    }
+
     @Override
     public Shop renameShop(String shopId, String newName) {
         Shop shop = getShopById(shopId);
         shop.setName(newName);
-        return shopsRepository.save(shop);
+        Shop savedShop = shopsRepository.save(shop);
+        afterCommitExecutor.execute(() -> autocompleteService.registerShop(savedShop));
+        return savedShop;
     }
 
     @Override
@@ -86,12 +141,25 @@ public class ShopsServiceImpl implements ShopsService {
 
     @Override
     public void deleteShop(String shopId) {
-        shopsRepository.deleteById(shopId);
+        if (removeShops(Collections.singletonList(shopId)) == 0) {
+            throw new ResourceException(NO_CONTENT, String.format("Shop with id '%s' does not exists.", shopId));
+        }
     }
 
     @Override
     public void deleteShops(List<String> shopIds) {
-        shopsRepository.deleteAllById(shopIds);
+        if (!shopIds.isEmpty()) {
+            removeShops(shopIds);
+        }
+    }
+
+    private int removeShops(List<String> shopIds) {
+        // in the async purge mode the shops are only hidden, the rows are reclaimed by DeletedEntitiesPurgeService
+        int removedShops = asyncPurge
+                ? shopsRepository.markAllDeletedByIdIn(shopIds, LocalDateTime.now())
+                : shopsRepository.deleteAllByIdIn(shopIds);
+        afterCommitExecutor.execute(() -> autocompleteService.removeShops(shopIds));
+        return removedShops;
     }
 
 }
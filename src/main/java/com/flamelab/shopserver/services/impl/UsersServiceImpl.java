@@ -1,15 +1,23 @@
 package com.flamelab.shopserver.services.impl;
 
 import com.flamelab.shopserver.dtos.create.CreateUserDto;
+import com.flamelab.shopserver.dtos.transfer.TransferUserDto;
 import com.flamelab.shopserver.dtos.update.UpdateUserDto;
 import com.flamelab.shopserver.dtos.update.UpdateUserPasswordDto;
 import com.flamelab.shopserver.entities.User;
+import com.flamelab.shopserver.enums.Roles;
 import com.flamelab.shopserver.exceptions.ResourceException;
 import com.flamelab.shopserver.mappers.UsersMapper;
 import com.flamelab.shopserver.repositories.UsersRepository;
 import com.flamelab.shopserver.services.UsersService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 
@@ -22,9 +30,12 @@ public class UsersServiceImpl implements UsersService {
     private final UsersRepository usersRepository;
     private final UsersMapper usersMapper;
 
+    @Value("${shop.users.search.max-results:100}")
+    private int maxSearchResults;
+
     @Override
-    public User createUser(CreateUserDto createUserDto) {
-        return usersRepository.save(usersMapper.mapToEntity(createUserDto));
+    public User createUser(String userId, CreateUserDto createUserDto, String walletId) {
+        return usersRepository.save(usersMapper.mapToEntity(userId, createUserDto, walletId));
     }
 
     @Override
@@ -55,17 +66,40 @@ public class UsersServiceImpl implements UsersService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return usersRepository.findAll();
     }
 
     @Override
-    public List<User> getAllUsersByTextInParameters(String text) {
-        Set<User> users = new HashSet<>();
-        users.addAll(usersRepository.findAllByEmailContaining(text));
-        users.addAll(usersRepository.findAllByRoleContaining(text));
-        users.addAll(usersRepository.findAllByUsernameContaining(text));
-        return new ArrayList<>(users);
+    @Transactional(readOnly = true)
+    public List<TransferUserDto> getAllUsersWithWallets() {
+        return usersRepository.findAllUsersWithWallets();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<TransferUserDto> getUsersWithWalletsPage(Pageable pageable) {
+        return usersRepository.findAllUsersWithWallets(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransferUserDto> getUsersWithWalletsAfterId(String afterId, Pageable pageable) {
+        return usersRepository.findAllUsersWithWalletsAfterId(afterId, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransferUserDto> searchUsersWithWallets(String text) {
+        String normalizedText = text.trim().toLowerCase();
+        String pattern = "%" + normalizedText.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        String role = Arrays.stream(Roles.values())
+                .map(Roles::name)
+                .filter(name -> name.equalsIgnoreCase(normalizedText))
+                .findFirst()
+                .orElse(null);
+        return usersRepository.searchUsersWithWallets(pattern, role, PageRequest.of(0, maxSearchResults, Sort.by("username")));
     }
 
     @Override
@@ -86,13 +120,6 @@ public class UsersServiceImpl implements UsersService {
         return userFromDb;
     }
 
-    @Override
-    public User addWalletToUser(String userId, String walletId) {
-        User user = getUserById(userId);
-        user.setWalletId(walletId);
-        return usersRepository.save(user);
-    }
-
     @Override
     public void recoverPassword(String userId, String newPassword) {
         User user = getUserById(userId);
@@ -113,7 +140,9 @@ public class UsersServiceImpl implements UsersService {
 
     @Override
     public void deleteUser(String userId) {
-        usersRepository.deleteById(userId);
+        if (usersRepository.deleteUserById(userId) == 0) {
+            throw new ResourceException(NO_CONTENT, String.format("User with id '%s' does not exists", userId));
+        }
     }
 
 }
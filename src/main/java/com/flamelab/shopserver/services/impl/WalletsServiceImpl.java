@@ -9,12 +9,13 @@ import com.flamelab.shopserver.mappers.WalletMapper;
 import com.flamelab.shopserver.repositories.WalletsRepository;
 import com.flamelab.shopserver.services.WalletsService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import static com.flamelab.shopserver.enums.NumberActionType.*;
 import static org.springframework.http.HttpStatus.NO_CONTENT;
@@ -33,6 +34,11 @@ public class WalletsServiceImpl implements WalletsService {
         return walletsRepository.save(walletMapper.mapToEntity(createWalletDto));
     }
 
+    @Override
+    public Wallet createWallet(String walletId, CreateWalletDto createWalletDto, WalletOwnerTypes ownerType, String ownerId, String ownerName) {
+        return walletsRepository.save(walletMapper.mapToEntity(walletId, createWalletDto, ownerType, ownerId, ownerName));
+    }
+
     @Override
     public Wallet getWalletById(String walletId) {
         Optional<Wallet> optionalWallet = walletsRepository.findById(walletId);
@@ -55,21 +61,30 @@ public class WalletsServiceImpl implements WalletsService {
 
     @Override
     public List<Wallet> getWalletsByOwnerIds(List<String> ownerIds) {
-        List<Wallet> wallets = new ArrayList<>();
-        ownerIds.forEach(id -> wallets.add(getWalletByOwnerId(id)));
-        return wallets;
+        return walletsRepository.findAllByOwnerIdIn(ownerIds);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Wallet> getAllWallets() {
         return walletsRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Wallet> getWalletsPage(Pageable pageable) {
+        return walletsRepository.findAll(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Wallet> getWalletsAfterId(String afterId, Pageable pageable) {
+        return walletsRepository.findAllByIdGreaterThan(afterId, pageable);
+    }
+
     @Override
     public List<Wallet> getAllWalletsByShopsIds(List<String> shopIds) {
-        return shopIds.stream()
-                .map(this::getWalletByOwnerId)
-                .collect(Collectors.toList());
+        return walletsRepository.findAllByOwnerIdIn(shopIds);
     }
 
     @Override
@@ -102,8 +117,10 @@ public class WalletsServiceImpl implements WalletsService {
     }
 
     @Override
-    public void deleteWallet(String walletId) {
-        walletsRepository.deleteById(walletId);
+    public void deleteWalletsByOwnerIds(List<String> ownerIds) {
+        if (!ownerIds.isEmpty()) {
+            walletsRepository.deleteAllByOwnerIdIn(ownerIds);
+        }
     }
 
 }
@@ -0,0 +1,7 @@
+package com.flamelab.shopserver.utiles;
+
+public interface AfterCommitExecutor {
+
+    void execute(Runnable action);
+
+}
@@ -0,0 +1,11 @@
+package com.flamelab.shopserver.utiles;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.function.Function;
+
+public interface AsyncCacheLoader {
+
+    <K, V> V get(AsyncCache<K, V> cache, K key, Function<K, V> loader);
+
+}
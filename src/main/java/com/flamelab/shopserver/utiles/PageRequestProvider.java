@@ -0,0 +1,14 @@
+package com.flamelab.shopserver.utiles;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.Set;
+
+public interface PageRequestProvider {
+
+    PageRequest providePageRequest(int page, int size, String sort, Sort.Direction direction, Set<String> sortableFields);
+
+    PageRequest provideKeysetPageRequest(int size);
+
+}
@@ -0,0 +1,27 @@
+package com.flamelab.shopserver.utiles.impl;
+
+import com.flamelab.shopserver.utiles.AfterCommitExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+public class AfterCommitExecutorImpl implements AfterCommitExecutor {
+
+    // caches and in-memory indexes are changed only once the rows are committed, otherwise a concurrent reader could load
+    // the old rows back right after an eviction; nothing is changed when the transaction rolls back
+    @Override
+    public void execute(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+}
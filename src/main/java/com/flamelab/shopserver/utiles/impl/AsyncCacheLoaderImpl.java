@@ -0,0 +1,40 @@
+package com.flamelab.shopserver.utiles.impl;
+
+import com.flamelab.shopserver.utiles.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+@Component
+public class AsyncCacheLoaderImpl implements AsyncCacheLoader {
+
+    // Cache.get of Caffeine runs the loader inside a synchronized bin of its map, which pins a virtual thread to its carrier
+    // for the whole query; here only an empty future is placed under the lock and the caller loads the value outside of it.
+    // Other callers of the same key wait for that future, and a value invalidated while it is being loaded is not kept
+    @Override
+    public <K, V> V get(AsyncCache<K, V> cache, K key, Function<K, V> loader) {
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> cached = cache.get(key, (k, executor) -> loading);
+        if (cached == loading) {
+            try {
+                loading.complete(loader.apply(key));
+            } catch (RuntimeException e) {
+                // a failed or empty future is removed from the cache by Caffeine itself
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+}
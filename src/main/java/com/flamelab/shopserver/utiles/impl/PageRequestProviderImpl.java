@@ -0,0 +1,45 @@
+package com.flamelab.shopserver.utiles.impl;
+
+import com.flamelab.shopserver.exceptions.ResourceException;
+import com.flamelab.shopserver.utiles.PageRequestProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+@Component
+public class PageRequestProviderImpl implements PageRequestProvider {
+
+    @Value("${shop.pagination.max-page-size:100}")
+    private int maxPageSize;
+
+    @Override
+    public PageRequest providePageRequest(int page, int size, String sort, Sort.Direction direction, Set<String> sortableFields) {
+        verifySize(size);
+        if (page < 0) {
+            throw new ResourceException(BAD_REQUEST, "Page number can not be negative");
+        }
+        if (!sortableFields.contains(sort)) {
+            throw new ResourceException(BAD_REQUEST, String.format("Sorting is allowed only by %s", sortableFields));
+        }
+        // id is added to make the order stable between pages when the sorted values repeat
+        return PageRequest.of(page, size, Sort.by(direction, sort).and(Sort.by(direction, "id")));
+    }
+
+    @Override
+    public PageRequest provideKeysetPageRequest(int size) {
+        verifySize(size);
+        return PageRequest.of(0, size, Sort.by("id"));
+    }
+
+    private void verifySize(int size) {
+        if (size <= 0 || size > maxPageSize) {
+            throw new ResourceException(BAD_REQUEST, String.format("Page size should be between 1 and %s", maxPageSize));
+        }
+    }
+
+}
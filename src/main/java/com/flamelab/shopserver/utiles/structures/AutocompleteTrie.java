@@ -0,0 +1,83 @@
+package com.flamelab.shopserver.utiles.structures;
+
+import java.util.*;
+
+// immutable trie, every node keeps the best completions of its subtree, so a lookup is a walk over the prefix
+// characters; changes are applied by building a new trie and swapping the reference
+public final class AutocompleteTrie<T> {
+
+    private static final AutocompleteTrie<?> EMPTY = new AutocompleteTrie<>(new Node(new char[0], new Node[0], new Object[0]));
+
+    private final Node root;
+
+    private AutocompleteTrie(Node root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> AutocompleteTrie<T> empty() {
+        return (AutocompleteTrie<T>) EMPTY;
+    }
+
+    public static <T> AutocompleteTrie<T> build(List<Map.Entry<String, T>> keyedValues, Comparator<T> order, int topSize) {
+        List<Map.Entry<String, T>> sortedValues = keyedValues.stream()
+                .filter(entry -> !entry.getKey().isEmpty())
+                .sorted(Map.Entry.comparingByKey())
+                .toList();
+        return new AutocompleteTrie<>(buildNode(sortedValues, 0, sortedValues.size(), 0, order, topSize));
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<T> getCompletions(String prefix, int limit) {
+        Node node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            int child = Arrays.binarySearch(node.labels, prefix.charAt(i));
+            if (child < 0) {
+                return List.of();
+            }
+            node = node.children[child];
+        }
+        List<T> result = new ArrayList<>(Math.min(limit, node.top.length));
+        for (int i = 0; i < node.top.length && i < limit; i++) {
+            result.add((T) node.top[i]);
+        }
+        return result;
+    }
+
+    // values in [from, to) share the first depth characters of their keys
+    @SuppressWarnings("unchecked")
+    private static <T> Node buildNode(List<Map.Entry<String, T>> values, int from, int to, int depth, Comparator<T> order, int topSize) {
+        List<T> candidates = new ArrayList<>();
+        int i = from;
+        while (i < to && values.get(i).getKey().length() == depth) {
+            candidates.add(values.get(i).getValue());
+            i++;
+        }
+        StringBuilder labels = new StringBuilder();
+        List<Node> children = new ArrayList<>();
+        while (i < to) {
+            char label = values.get(i).getKey().charAt(depth);
+            int j = i;
+            while (j < to && values.get(j).getKey().charAt(depth) == label) {
+                j++;
+            }
+            Node child = buildNode(values, i, j, depth + 1, order, topSize);
+            labels.append(label);
+            children.add(child);
+            for (Object value : child.top) {
+                candidates.add((T) value);
+            }
+            i = j;
+        }
+        Object[] top = candidates.stream()
+                .distinct()
+                .sorted(order)
+                .limit(topSize)
+                .toArray();
+        return new Node(labels.toString().toCharArray(), children.toArray(new Node[0]), top);
+    }
+
+    private record Node(char[] labels, Node[] children, Object[] top) {
+    }
+
+}
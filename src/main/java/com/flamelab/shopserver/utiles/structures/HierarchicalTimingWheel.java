@@ -0,0 +1,94 @@
+package com.flamelab.shopserver.utiles.structures;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+// hierarchical timing wheel: level 0 has one slot per tick, every next level has one slot per full turn of the level below,
+// so scheduling is O(1) and an entry is moved down at most once per level before it expires;
+// deadlines beyond the last level wait in its farthest slot and are placed again when it comes around
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] levelTicks;
+    private final ArrayDeque<Entry<T>>[][] wheels;
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levelsCount, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levelTicks = new long[levelsCount];
+        this.wheels = new ArrayDeque[levelsCount][wheelSize];
+        long ticks = 1;
+        for (int level = 0; level < levelsCount; level++) {
+            levelTicks[level] = ticks;
+            ticks *= wheelSize;
+            for (int slot = 0; slot < wheelSize; slot++) {
+                wheels[level][slot] = new ArrayDeque<>();
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    public synchronized void schedule(T item, long deadlineMillis) {
+        place(new Entry<>(item, (deadlineMillis + tickMillis - 1) / tickMillis));
+    }
+
+    // moves the wheel to nowMillis and passes every entry whose deadline has come to onExpired
+    public synchronized void advance(long nowMillis, Consumer<T> onExpired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = 1; level < wheels.length && currentTick % levelTicks[level] == 0; level++) {
+                ArrayDeque<Entry<T>> slot = wheels[level][(int) ((currentTick / levelTicks[level]) % wheelSize)];
+                Entry<T> entry;
+                while ((entry = slot.poll()) != null) {
+                    if (entry.deadlineTick <= currentTick) {
+                        onExpired.accept(entry.item);
+                    } else {
+                        place(entry);
+                    }
+                }
+            }
+            ArrayDeque<Entry<T>> slot = wheels[0][(int) (currentTick % wheelSize)];
+            int slotSize = slot.size();
+            for (int i = 0; i < slotSize; i++) {
+                Entry<T> entry = slot.poll();
+                if (entry.deadlineTick <= currentTick) {
+                    onExpired.accept(entry.item);
+                } else {
+                    place(entry);
+                }
+            }
+        }
+    }
+
+    private void place(Entry<T> entry) {
+        long placementTick = Math.max(entry.deadlineTick, currentTick + 1);
+        int topLevel = wheels.length - 1;
+        long topSpan = levelTicks[topLevel] * wheelSize;
+        if (placementTick - currentTick >= topSpan) {
+            placementTick = currentTick + topSpan - 1;
+        }
+        long delta = placementTick - currentTick;
+        int level = 0;
+        while (level < topLevel && delta >= levelTicks[level] * wheelSize) {
+            level++;
+        }
+        wheels[level][(int) ((placementTick / levelTicks[level]) % wheelSize)].add(entry);
+    }
+
+    private static class Entry<T> {
+
+        private final T item;
+        private final long deadlineTick;
+
+        private Entry(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+    }
+
+}
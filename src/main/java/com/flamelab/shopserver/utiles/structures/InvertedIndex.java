@@ -0,0 +1,129 @@
+package com.flamelab.shopserver.utiles.structures;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+// terms of documents are kept sorted, so a prefix is a range of terms and fuzzy candidates are looked up
+// only among the terms starting with the same letter. Documents of a term share its posting set, so changes are applied
+// one at a time and a removal never drops a term another document has just joined; searches read without locking
+public class InvertedIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int EXACT_SCORE = 4;
+    private static final int PREFIX_SCORE = 2;
+    private static final int FUZZY_SCORE = 1;
+
+    private final ConcurrentSkipListMap<String, Set<String>> postings = new ConcurrentSkipListMap<>();
+    private final Map<String, List<String>> documentTerms = new ConcurrentHashMap<>();
+
+    public synchronized void put(String documentId, String text) {
+        List<String> terms = tokenize(text);
+        List<String> previousTerms = documentTerms.put(documentId, terms);
+        if (previousTerms != null) {
+            previousTerms.stream()
+                    .filter(term -> !terms.contains(term))
+                    .forEach(term -> removePosting(term, documentId));
+        }
+        terms.forEach(term -> postings.computeIfAbsent(term, key -> ConcurrentHashMap.newKeySet()).add(documentId));
+    }
+
+    public synchronized void remove(String documentId) {
+        List<String> terms = documentTerms.remove(documentId);
+        if (terms != null) {
+            terms.forEach(term -> removePosting(term, documentId));
+        }
+    }
+
+    public synchronized void clear() {
+        postings.clear();
+        documentTerms.clear();
+    }
+
+    public List<String> search(String query, int limit) {
+        List<String> queryTerms = tokenize(query);
+        Map<String, Integer> scores = new HashMap<>();
+        for (String queryTerm : queryTerms) {
+            Map<String, Integer> termScores = new HashMap<>();
+            postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).forEach((term, documents) -> {
+                int score = term.equals(queryTerm) ? EXACT_SCORE : PREFIX_SCORE;
+                documents.forEach(document -> termScores.merge(document, score, Math::max));
+            });
+            if (termScores.size() < limit) {
+                addFuzzyMatches(queryTerm, termScores);
+            }
+            termScores.forEach((document, score) -> scores.merge(document, score, Integer::sum));
+        }
+        return scores.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<String, Integer>>comparingInt(Map.Entry::getValue).reversed()
+                        .thenComparingInt(entry -> documentTerms.getOrDefault(entry.getKey(), List.of()).size())
+                        .thenComparing(Map.Entry::getKey))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(SEPARATORS.split(normalize(text)))
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    public static String normalize(String text) {
+        return DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private void addFuzzyMatches(String queryTerm, Map<String, Integer> termScores) {
+        int maxDistance = queryTerm.length() >= 8 ? 2 : queryTerm.length() >= 4 ? 1 : 0;
+        if (maxDistance == 0) {
+            return;
+        }
+        String firstLetter = queryTerm.substring(0, 1);
+        postings.subMap(firstLetter, true, firstLetter + Character.MAX_VALUE, false).forEach((term, documents) -> {
+            if (Math.abs(term.length() - queryTerm.length()) <= maxDistance && isWithinDistance(queryTerm, term, maxDistance)) {
+                documents.forEach(document -> termScores.merge(document, FUZZY_SCORE, Math::max));
+            }
+        });
+    }
+
+    private void removePosting(String term, String documentId) {
+        Set<String> documents = postings.get(term);
+        if (documents != null && documents.remove(documentId) && documents.isEmpty()) {
+            postings.remove(term);
+        }
+    }
+
+    // Levenshtein distance with an early exit as soon as a whole row is over the limit
+    private static boolean isWithinDistance(String left, String right, int maxDistance) {
+        int[] previous = new int[right.length() + 1];
+        int[] current = new int[right.length() + 1];
+        for (int j = 0; j <= right.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= left.length(); i++) {
+            current[0] = i;
+            int rowMinimum = current[0];
+            for (int j = 1; j <= right.length(); j++) {
+                int cost = left.charAt(i - 1) == right.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > maxDistance) {
+                return false;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[right.length()] <= maxDistance;
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.flamelab.shopserver.utiles.structures;
+
+import lombok.*;
+
+import java.util.*;
+
+// ring of Space-Saving sketches, one per time bucket; a bucket is reset when the ring comes around to it again,
+// so only the last bucketsCount buckets take part in the top
+public class SlidingWindowSketch {
+
+    private final long bucketMillis;
+    private final long[] bucketEpochs;
+    private final SpaceSavingSketch[] buckets;
+
+    public SlidingWindowSketch(int bucketsCount, long bucketMillis, int capacity) {
+        this.bucketMillis = bucketMillis;
+        this.bucketEpochs = new long[bucketsCount];
+        this.buckets = new SpaceSavingSketch[bucketsCount];
+        for (int i = 0; i < bucketsCount; i++) {
+            buckets[i] = new SpaceSavingSketch(capacity);
+            bucketEpochs[i] = -1;
+        }
+    }
+
+    public void add(String item, long weight, long timestamp) {
+        long epoch = timestamp / bucketMillis;
+        int index = (int) (epoch % buckets.length);
+        synchronized (buckets[index]) {
+            if (bucketEpochs[index] != epoch) {
+                buckets[index].clear();
+                bucketEpochs[index] = epoch;
+            }
+            buckets[index].add(item, weight);
+        }
+    }
+
+    public List<SpaceSavingSketch.Counter> getTop(int limit, long timestamp) {
+        Map<String, SpaceSavingSketch.Counter> merged = new HashMap<>();
+        for (Bucket bucket : getBuckets(timestamp)) {
+            for (SpaceSavingSketch.Counter counter : bucket.getCounters()) {
+                merged.merge(counter.getItem(), counter, (left, right) -> new SpaceSavingSketch.Counter(
+                        left.getItem(), left.getCount() + right.getCount(), left.getError() + right.getError()));
+            }
+        }
+        return merged.values().stream()
+                .sorted(Comparator.comparingLong(SpaceSavingSketch.Counter::getCount).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public boolean isEmpty(long timestamp) {
+        return getBuckets(timestamp).stream().allMatch(bucket -> bucket.getCounters().isEmpty());
+    }
+
+    public boolean contains(String item, long timestamp) {
+        long currentEpoch = timestamp / bucketMillis;
+        for (int i = 0; i < buckets.length; i++) {
+            synchronized (buckets[i]) {
+                if (bucketEpochs[i] > currentEpoch - buckets.length && bucketEpochs[i] <= currentEpoch && buckets[i].contains(item)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public List<Bucket> getBuckets(long timestamp) {
+        long currentEpoch = timestamp / bucketMillis;
+        List<Bucket> result = new ArrayList<>(buckets.length);
+        for (int i = 0; i < buckets.length; i++) {
+            synchronized (buckets[i]) {
+                if (bucketEpochs[i] > currentEpoch - buckets.length && bucketEpochs[i] <= currentEpoch) {
+                    result.add(new Bucket(bucketEpochs[i], buckets[i].getCounters()));
+                }
+            }
+        }
+        return result;
+    }
+
+    public void restore(List<Bucket> restoredBuckets, long timestamp) {
+        long currentEpoch = timestamp / bucketMillis;
+        for (Bucket bucket : restoredBuckets) {
+            if (bucket.getEpoch() > currentEpoch - buckets.length && bucket.getEpoch() <= currentEpoch) {
+                int index = (int) (bucket.getEpoch() % buckets.length);
+                synchronized (buckets[index]) {
+                    buckets[index].restore(bucket.getCounters());
+                    bucketEpochs[index] = bucket.getEpoch();
+                }
+            }
+        }
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Bucket {
+
+        private long epoch;
+        private List<SpaceSavingSketch.Counter> counters;
+
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.flamelab.shopserver.utiles.structures;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Space-Saving heavy hitters: keeps at most capacity counters, an unknown item replaces the smallest counter
+// and inherits its count as the possible overestimation
+public class SpaceSavingSketch {
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+
+    public SpaceSavingSketch(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized void add(String item, long weight) {
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            counter.count += weight;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(item, new Counter(item, weight, 0));
+            return;
+        }
+        Counter minimal = null;
+        for (Counter candidate : counters.values()) {
+            if (minimal == null || candidate.count < minimal.count) {
+                minimal = candidate;
+            }
+        }
+        counters.remove(minimal.item);
+        counters.put(item, new Counter(item, minimal.count + weight, minimal.count));
+    }
+
+    public synchronized boolean contains(String item) {
+        return counters.containsKey(item);
+    }
+
+    public synchronized List<Counter> getCounters() {
+        List<Counter> result = new ArrayList<>(counters.size());
+        counters.values().forEach(counter -> result.add(new Counter(counter.item, counter.count, counter.error)));
+        return result;
+    }
+
+    public synchronized void restore(List<Counter> restoredCounters) {
+        counters.clear();
+        restoredCounters.stream()
+                .limit(capacity)
+                .forEach(counter -> counters.put(counter.item, new Counter(counter.item, counter.count, counter.error)));
+    }
+
+    public synchronized void clear() {
+        counters.clear();
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Counter {
+
+        private String item;
+        private long count;
+        private long error;
+
+    }
+
+}
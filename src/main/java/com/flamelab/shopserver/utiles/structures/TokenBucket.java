@@ -0,0 +1,35 @@
+package com.flamelab.shopserver.utiles.structures;
+
+// token bucket rate limiter: tokens are refilled continuously at tokensPerSecond up to capacity,
+// a burst can use at most capacity tokens at once
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(double capacity, double tokensPerSecond) {
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public synchronized int available(int requested) {
+        refill();
+        return (int) Math.min(requested, Math.floor(tokens));
+    }
+
+    public synchronized void consume(int consumed) {
+        refill();
+        tokens -= consumed;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+
+}
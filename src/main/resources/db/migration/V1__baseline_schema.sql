@@ -0,0 +1,84 @@
+-- schema of the entities as it was kept by ddl-auto: update before the migrations, existing databases are baselined
+-- at this version and every later change of the schema comes with V2 and up
+
+CREATE TABLE users (
+    id                varchar(255) NOT NULL,
+    created_date      timestamp(6),
+    last_updated_date timestamp(6),
+    username          varchar(255),
+    email             varchar(255),
+    password          varchar(255),
+    wallet_id         varchar(255),
+    role              varchar(255),
+    is_active         boolean      NOT NULL,
+    CONSTRAINT users_pkey PRIMARY KEY (id)
+);
+
+CREATE TABLE wallets (
+    id                varchar(255) NOT NULL,
+    created_date      timestamp(6),
+    last_updated_date timestamp(6),
+    owner_id          varchar(255),
+    owner_type        varchar(255),
+    owner_name        varchar(255),
+    amount            float(53)    NOT NULL,
+    CONSTRAINT wallets_pkey PRIMARY KEY (id)
+);
+
+CREATE TABLE shops (
+    id                varchar(255) NOT NULL,
+    created_date      timestamp(6),
+    last_updated_date timestamp(6),
+    name              varchar(255),
+    owner_id          varchar(255),
+    owner_name        varchar(255),
+    wallet_id         varchar(255),
+    CONSTRAINT shops_pkey PRIMARY KEY (id)
+);
+
+CREATE TABLE products (
+    id                varchar(255) NOT NULL,
+    created_date      timestamp(6),
+    last_updated_date timestamp(6),
+    owner_shop_id     varchar(255),
+    name              varchar(255),
+    amount            integer      NOT NULL,
+    price             float(53)    NOT NULL,
+    CONSTRAINT products_pkey PRIMARY KEY (id)
+);
+
+CREATE TABLE tokens (
+    id                varchar(255) NOT NULL,
+    created_date      timestamp(6),
+    last_updated_date timestamp(6),
+    user_id           varchar(255),
+    token             varchar(255),
+    token_type        varchar(255),
+    email             varchar(255),
+    role              varchar(255),
+    usage_amount      integer      NOT NULL,
+    CONSTRAINT tokens_pkey PRIMARY KEY (id)
+);
+
+CREATE TABLE temp_codes (
+    id                varchar(255) NOT NULL,
+    created_date      timestamp(6),
+    last_updated_date timestamp(6),
+    email             varchar(255),
+    temp_code         integer      NOT NULL,
+    CONSTRAINT temp_codes_pkey PRIMARY KEY (id)
+);
+
+CREATE TABLE purchase_history (
+    id                varchar(255) NOT NULL,
+    created_date      timestamp(6),
+    last_updated_date timestamp(6),
+    product_name      varchar(255),
+    amount            integer      NOT NULL,
+    price             float(53)    NOT NULL,
+    merchant_id       varchar(255),
+    merchant_name     varchar(255),
+    customer_id       varchar(255),
+    customer_name     varchar(255),
+    CONSTRAINT purchase_history_pkey PRIMARY KEY (id)
+);
@@ -0,0 +1,74 @@
+-- columns, tables and indexes added on top of the schema of V1, IF NOT EXISTS keeps every statement safe on a database
+-- that ddl-auto: update had already brought closer to the entities before it was baselined
+
+-- deleted shops and their products are hidden at once and purged in the background
+ALTER TABLE shops ADD COLUMN IF NOT EXISTS deleted_date timestamp(6);
+ALTER TABLE products ADD COLUMN IF NOT EXISTS deleted_date timestamp(6);
+CREATE INDEX IF NOT EXISTS shops_deleted_date_idx ON shops (deleted_date);
+CREATE INDEX IF NOT EXISTS products_deleted_date_idx ON products (deleted_date);
+
+-- idle and absolute lifetimes of auth tokens and the expiry of temporary codes, existing tokens get theirs in V3
+ALTER TABLE tokens ADD COLUMN IF NOT EXISTS last_used_date timestamp(6);
+ALTER TABLE tokens ADD COLUMN IF NOT EXISTS expires_date timestamp(6);
+ALTER TABLE temp_codes ADD COLUMN IF NOT EXISTS expires_date timestamp(6);
+CREATE INDEX IF NOT EXISTS tokens_last_used_date_idx ON tokens (last_used_date);
+CREATE INDEX IF NOT EXISTS tokens_expires_date_idx ON tokens (expires_date);
+CREATE INDEX IF NOT EXISTS temp_codes_expires_date_idx ON temp_codes (expires_date);
+
+-- operations recorded before the co-purchase recommendations have no product id
+ALTER TABLE purchase_history ADD COLUMN IF NOT EXISTS product_id varchar(255);
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id                varchar(255) NOT NULL,
+    created_date      timestamp(6),
+    last_updated_date timestamp(6),
+    receiver_email    varchar(255),
+    subject           varchar(255),
+    text              text,
+    status            varchar(255),
+    attempts          integer      NOT NULL,
+    next_attempt_date timestamp(6),
+    last_error        text,
+    CONSTRAINT email_outbox_pkey PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS email_outbox_status_next_attempt_date_idx ON email_outbox (status, next_attempt_date);
+
+CREATE TABLE IF NOT EXISTS sales_rollups (
+    id                varchar(255) NOT NULL,
+    created_date      timestamp(6),
+    last_updated_date timestamp(6),
+    shop_id           varchar(255),
+    product_name      varchar(255),
+    sales_date        date,
+    purchases_count   bigint       NOT NULL,
+    units_amount      bigint       NOT NULL,
+    revenue           float(53)    NOT NULL,
+    CONSTRAINT sales_rollups_pkey PRIMARY KEY (id),
+    CONSTRAINT sales_rollups_shop_id_product_name_sales_date_key UNIQUE (shop_id, product_name, sales_date)
+);
+
+-- indexes for the lookups and the sorted pages that were sequential scans
+CREATE INDEX IF NOT EXISTS users_created_date_idx ON users (created_date);
+CREATE INDEX IF NOT EXISTS users_username_idx ON users (username);
+CREATE INDEX IF NOT EXISTS users_email_idx ON users (email);
+
+CREATE INDEX IF NOT EXISTS wallets_created_date_idx ON wallets (created_date);
+CREATE INDEX IF NOT EXISTS wallets_owner_id_idx ON wallets (owner_id);
+
+CREATE INDEX IF NOT EXISTS shops_created_date_idx ON shops (created_date);
+CREATE INDEX IF NOT EXISTS shops_name_idx ON shops (name);
+CREATE INDEX IF NOT EXISTS shops_owner_id_idx ON shops (owner_id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS tokens_token_idx ON tokens (token);
+CREATE INDEX IF NOT EXISTS tokens_email_idx ON tokens (email);
+
+CREATE INDEX IF NOT EXISTS temp_codes_email_temp_code_idx ON temp_codes (email, temp_code);
+
+-- history of a customer or a shop is always read in the order of created_date
+CREATE INDEX IF NOT EXISTS purchase_history_customer_id_created_date_idx ON purchase_history (customer_id, created_date);
+CREATE INDEX IF NOT EXISTS purchase_history_merchant_id_created_date_idx ON purchase_history (merchant_id, created_date);
+
+-- trigram indexes for the user search by a part of the username or the email
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS users_username_trgm_idx ON users USING gin (lower(username) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS users_email_trgm_idx ON users USING gin (lower(email) gin_trgm_ops);
@@ -0,0 +1,23 @@
+-- one-off fixes of the rows written before the migrations, on an empty database every statement finds nothing to change
+
+-- tokens issued before time based expiry get lifetimes from their last update, the usage counter is not used anymore
+UPDATE tokens SET last_used_date = coalesce(last_used_date, last_updated_date),
+                  expires_date = coalesce(expires_date, created_date + interval '12 hours')
+    WHERE last_used_date IS NULL OR expires_date IS NULL;
+ALTER TABLE tokens DROP COLUMN IF EXISTS usage_amount;
+
+-- merges products with the same name in a shop, so the unique constraint on (owner_shop_id, name) can be created
+UPDATE products p SET amount = d.amount
+    FROM (SELECT min(id) AS id, sum(amount) AS amount FROM products GROUP BY owner_shop_id, name HAVING count(*) > 1) d
+    WHERE p.id = d.id;
+DELETE FROM products p USING products k
+    WHERE p.owner_shop_id = k.owner_shop_id AND p.name = k.name AND p.id > k.id;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conname = 'products_owner_shop_id_name_key' AND conrelid = 'products'::regclass) THEN
+        ALTER TABLE products ADD CONSTRAINT products_owner_shop_id_name_key UNIQUE (owner_shop_id, name);
+    END IF;
+END
+$$;
@@ -0,0 +1,29 @@
+-- purchase_history of V1 is a plain table, it is converted into a table partitioned by month of created_date
+-- before the application starts, with a partition for every month it already holds
+DO $$
+DECLARE
+    partition_month date;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace
+               WHERE c.relname = 'purchase_history' AND n.nspname = current_schema() AND c.relkind = 'r') THEN
+        -- created_date is the partition key and a part of the primary key, operations without it get the date of their last update
+        UPDATE purchase_history SET created_date = coalesce(last_updated_date, now()) WHERE created_date IS NULL;
+        ALTER TABLE purchase_history RENAME TO purchase_history_unpartitioned;
+        CREATE TABLE purchase_history (LIKE purchase_history_unpartitioned INCLUDING DEFAULTS) PARTITION BY RANGE (created_date);
+        ALTER TABLE purchase_history ADD CONSTRAINT purchase_history_partitioned_pkey PRIMARY KEY (id, created_date);
+        FOR partition_month IN SELECT DISTINCT date_trunc('month', created_date)::date FROM purchase_history_unpartitioned LOOP
+            EXECUTE format('CREATE TABLE %I PARTITION OF purchase_history FOR VALUES FROM (%L) TO (%L)',
+                           'purchase_history_p' || to_char(partition_month, 'YYYY_MM'),
+                           partition_month, partition_month + interval '1 month');
+        END LOOP;
+        INSERT INTO purchase_history SELECT * FROM purchase_history_unpartitioned;
+        -- indexes of V2 are dropped with the old table, a partitioned index covers every partition
+        DROP TABLE purchase_history_unpartitioned;
+        CREATE INDEX purchase_history_customer_id_created_date_idx ON purchase_history (customer_id, created_date);
+        CREATE INDEX purchase_history_merchant_id_created_date_idx ON purchase_history (merchant_id, created_date);
+    END IF;
+END
+$$;
+
+-- takes operations of months without a partition, PurchaseHistoryPartitionsService moves them out when it creates the month
+CREATE TABLE IF NOT EXISTS purchase_history_default PARTITION OF purchase_history DEFAULT;
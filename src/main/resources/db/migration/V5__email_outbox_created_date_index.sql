@@ -0,0 +1,2 @@
+-- the outbox reaper deletes messages by their age
+CREATE INDEX IF NOT EXISTS email_outbox_created_date_idx ON email_outbox (created_date);
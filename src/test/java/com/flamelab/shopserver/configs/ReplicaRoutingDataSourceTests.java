@@ -0,0 +1,112 @@
+package com.flamelab.shopserver.configs;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.flamelab.shopserver.configs.ReplicaRoutingDataSource.PRIMARY;
+import static com.flamelab.shopserver.configs.ReplicaRoutingDataSource.REPLICA;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+// the primary and the replica are two separate in-memory databases, each of them knows its own role
+class ReplicaRoutingDataSourceTests {
+
+    private static final String SERVICE_TRANSACTION = "com.flamelab.shopserver.services.impl.PurchaseOperationsServiceImpl.getAllPurchaseOperationsByUser";
+    private static final String REPOSITORY_TRANSACTION = "org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById";
+
+    private DataSourceTransactionManager transactionManager;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createDatabases() {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(Duration.ofMinutes(1), 100);
+        routingDataSource.setTargetDataSources(Map.of(PRIMARY, createDatabase(PRIMARY), REPLICA, createDatabase(REPLICA)));
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        startRequest("Bearer first");
+    }
+
+    @AfterEach
+    void finishRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyServiceTransactionReadsFromReplica() {
+        assertEquals(REPLICA, readDatabaseRole(SERVICE_TRANSACTION));
+    }
+
+    @Test
+    void readOnlyRepositoryTransactionReadsFromPrimary() {
+        assertEquals(PRIMARY, readDatabaseRole(REPOSITORY_TRANSACTION));
+    }
+
+    @Test
+    void writeTransactionGoesToPrimary() {
+        assertEquals(PRIMARY, writeDatabaseRole(false));
+    }
+
+    @Test
+    void requesterReadsFromPrimaryAfterCommittedWrite() {
+        writeDatabaseRole(false);
+        assertEquals(PRIMARY, readDatabaseRole(SERVICE_TRANSACTION));
+        startRequest("Bearer second");
+        assertEquals(REPLICA, readDatabaseRole(SERVICE_TRANSACTION));
+    }
+
+    @Test
+    void requesterKeepsReadingFromReplicaAfterRolledBackWrite() {
+        writeDatabaseRole(true);
+        assertEquals(REPLICA, readDatabaseRole(SERVICE_TRANSACTION));
+    }
+
+    private DataSource createDatabase(String role) {
+        DataSource database = new DriverManagerDataSource("jdbc:h2:mem:" + role + "_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate databaseJdbcTemplate = new JdbcTemplate(database);
+        databaseJdbcTemplate.execute("CREATE TABLE database_role (name varchar(16))");
+        databaseJdbcTemplate.update("INSERT INTO database_role (name) VALUES (?)", role);
+        return database;
+    }
+
+    private void startRequest(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(AUTHORIZATION, authorization);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private String readDatabaseRole(String transactionName) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.setName(transactionName);
+        return transactionTemplate.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM database_role", String.class));
+    }
+
+    private String writeDatabaseRole(boolean rollback) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        return transactionTemplate.execute(status -> {
+            String role = jdbcTemplate.queryForObject("SELECT name FROM database_role", String.class);
+            jdbcTemplate.update("UPDATE database_role SET name = name");
+            if (rollback) {
+                status.setRollbackOnly();
+            }
+            return role;
+        });
+    }
+
+}
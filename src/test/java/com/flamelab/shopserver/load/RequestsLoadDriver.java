@@ -0,0 +1,128 @@
+package com.flamelab.shopserver.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// closed-loop load against a running server: every client sends its next request as soon as the previous one is answered.
+// It is not a test, scripts/compare-threads.sh runs it against the server started on platform and on virtual threads
+public class RequestsLoadDriver {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("load.url", "http://localhost:8052/shop-server/api");
+        String path = System.getProperty("load.path", "/shops/page?size=20");
+        String label = System.getProperty("load.label", "server");
+        int clients = Integer.getInteger("load.clients", 200);
+        Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+        Duration duration = Duration.parse(System.getProperty("load.duration", "PT30S"));
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(8))
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String authorization = login(httpClient, baseUrl, System.getProperty("load.email"), System.getProperty("load.password"));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", authorization)
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+
+        run(httpClient, request, clients, warmup);
+        Result result = run(httpClient, request, clients, duration);
+        System.out.printf("%s: %d clients, %d requests in %ss, %.1f req/s, p50 %.1f ms, p99 %.1f ms, max %.1f ms, %d errors%n",
+                label, clients, result.latencies().length, duration.toSeconds(),
+                result.latencies().length / (double) duration.toSeconds(),
+                result.percentile(0.50), result.percentile(0.99), result.percentile(1.0), result.errors());
+        System.exit(0);
+    }
+
+    private static String login(HttpClient httpClient, String baseUrl, String email, String password) throws Exception {
+        if (email == null || password == null) {
+            throw new IllegalArgumentException("load.email and load.password of an existing user are required");
+        }
+        HttpRequest loginRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(String.format("{\"email\":\"%s\",\"password\":\"%s\"}", email, password)))
+                .build();
+        HttpResponse<String> response = httpClient.send(loginRequest, HttpResponse.BodyHandlers.ofString());
+        Matcher token = TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !token.find()) {
+            throw new IllegalStateException(String.format("Login failed with %s: %s", response.statusCode(), response.body()));
+        }
+        return "Bearer " + token.group(1);
+    }
+
+    private static Result run(HttpClient httpClient, HttpRequest request, int clients, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService clientThreads = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Result>> clientResults = new ArrayList<>();
+            for (int client = 0; client < clients; client++) {
+                clientResults.add(clientThreads.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    int errors = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors++;
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors++;
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return new Result(Arrays.copyOf(latencies, count), errors);
+                }));
+            }
+            long[] latencies = new long[0];
+            int errors = 0;
+            for (Future<Result> clientResult : clientResults) {
+                Result result = clientResult.get();
+                int from = latencies.length;
+                latencies = Arrays.copyOf(latencies, from + result.latencies().length);
+                System.arraycopy(result.latencies(), 0, latencies, from, result.latencies().length);
+                errors += result.errors();
+            }
+            Arrays.sort(latencies);
+            return new Result(latencies, errors);
+        } finally {
+            clientThreads.shutdownNow();
+            clientThreads.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    // latencies are sorted nanoseconds of successful requests
+    private record Result(long[] latencies, int errors) {
+
+        private double percentile(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * latencies.length) - 1;
+            return latencies[Math.max(index, 0)] / 1_000_000d;
+        }
+
+    }
+
+}
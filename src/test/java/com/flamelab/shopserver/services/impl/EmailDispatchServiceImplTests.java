@@ -0,0 +1,102 @@
+package com.flamelab.shopserver.services.impl;
+
+import com.flamelab.shopserver.entities.EmailOutboxMessage;
+import com.flamelab.shopserver.repositories.EmailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.flamelab.shopserver.enums.EmailStatus.PENDING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+// the outbox table is mocked, the messages go through a real SMTP conversation with GreenMail
+class EmailDispatchServiceImplTests {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private EmailOutboxRepository emailOutboxRepository;
+    private EmailDispatchServiceImpl emailDispatchService;
+
+    @BeforeEach
+    void prepareDispatchService() {
+        emailOutboxRepository = mock(EmailOutboxRepository.class);
+        emailDispatchService = createDispatchService(ServerSetupTest.SMTP.getPort());
+    }
+
+    @Test
+    void sentMessagesAreDeletedFromOutbox() throws Exception {
+        EmailOutboxMessage first = createMessage("first", "first@mail.com");
+        EmailOutboxMessage second = createMessage("second", "second@mail.com");
+        when(emailOutboxRepository.claimPendingMessages(any(), any(), anyInt())).thenReturn(List.of(first, second));
+
+        emailDispatchService.dispatchEmails();
+
+        // the batch is sent in no particular order
+        Set<String> receivers = new HashSet<>();
+        for (MimeMessage receivedMessage : greenMail.getReceivedMessages()) {
+            assertEquals("Registration confirmation", receivedMessage.getSubject());
+            receivers.add(receivedMessage.getAllRecipients()[0].toString());
+        }
+        assertEquals(Set.of("first@mail.com", "second@mail.com"), receivers);
+        verify(emailOutboxRepository).deleteAllByIdIn(List.of("first", "second"));
+        verify(emailOutboxRepository, never()).updateAfterFailedAttempt(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void messagesAreRetriedWhenServerIsUnreachable() {
+        EmailOutboxMessage message = createMessage("first", "first@mail.com");
+        when(emailOutboxRepository.claimPendingMessages(any(), any(), anyInt())).thenReturn(List.of(message));
+        // nothing listens next to the SMTP port of GreenMail
+        EmailDispatchServiceImpl unreachableDispatchService = createDispatchService(ServerSetupTest.SMTP.getPort() + 1);
+
+        unreachableDispatchService.dispatchEmails();
+
+        verify(emailOutboxRepository, never()).deleteAllByIdIn(any());
+        verify(emailOutboxRepository).updateAfterFailedAttempt(eq("first"), eq(PENDING.name()), any(), any(), any());
+    }
+
+    private EmailDispatchServiceImpl createDispatchService(int smtpPort) {
+        JavaMailSenderImpl javaMailSender = new JavaMailSenderImpl();
+        javaMailSender.setHost(ServerSetupTest.SMTP.getBindAddress());
+        javaMailSender.setPort(smtpPort);
+        EmailDispatchServiceImpl dispatchService = new EmailDispatchServiceImpl(emailOutboxRepository, javaMailSender);
+        ReflectionTestUtils.setField(dispatchService, "sender", "no-reply@shop.ua");
+        ReflectionTestUtils.setField(dispatchService, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatchService, "ratePerSecond", 10d);
+        ReflectionTestUtils.setField(dispatchService, "lease", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(dispatchService, "maxAttempts", 8);
+        ReflectionTestUtils.setField(dispatchService, "initialBackoff", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(dispatchService, "maxBackoff", Duration.ofHours(6));
+        dispatchService.createRateLimiter();
+        return dispatchService;
+    }
+
+    // claimPendingMessages has already counted the attempt
+    private EmailOutboxMessage createMessage(String id, String receiverEmail) {
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setId(id);
+        message.setCreatedDate(LocalDateTime.now());
+        message.setLastUpdatedDate(LocalDateTime.now());
+        message.setReceiverEmail(receiverEmail);
+        message.setSubject("Registration confirmation");
+        message.setText("<p>Your code is 123456</p>");
+        message.setStatus(PENDING.name());
+        message.setAttempts(1);
+        message.setNextAttemptDate(LocalDateTime.now());
+        return message;
+    }
+
+}
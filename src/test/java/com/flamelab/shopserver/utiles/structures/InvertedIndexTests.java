@@ -0,0 +1,66 @@
+package com.flamelab.shopserver.utiles.structures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InvertedIndexTests {
+
+    private static final int THREADS = 4;
+    private static final int TERMS = 5000;
+
+    // for every term all threads add a document at the same time and all of them but one remove it again,
+    // so the posting set keeps getting emptied while the remaining document joins it
+    @Test
+    void concurrentRemovalsKeepTheDocumentThatJoinedTheTerm() throws Exception {
+        InvertedIndex index = new InvertedIndex();
+        CyclicBarrier nextTerm = new CyclicBarrier(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int writer = thread;
+                writers.add(executor.submit(() -> {
+                    for (int term = 0; term < TERMS; term++) {
+                        nextTerm.await();
+                        String documentId = writer + "-" + term;
+                        index.put(documentId, "term" + term + "x");
+                        if (term % THREADS != writer) {
+                            index.remove(documentId);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int term = 0; term < TERMS; term++) {
+            String keptDocumentId = term % THREADS + "-" + term;
+            assertEquals(List.of(keptDocumentId), index.search("term" + term + "x", 1));
+        }
+    }
+
+    @Test
+    void reindexedDocumentIsFoundOnlyByItsNewTerms() {
+        InvertedIndex index = new InvertedIndex();
+        index.put("1", "Red apple");
+        index.put("1", "Green apple");
+
+        assertEquals(List.of(), index.search("red", 10));
+        assertEquals(List.of("1"), index.search("green", 10));
+        assertEquals(List.of("1"), index.search("apple", 10));
+    }
+
+}